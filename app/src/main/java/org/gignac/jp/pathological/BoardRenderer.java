@@ -0,0 +1,478 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import android.graphics.*;
+
+// Draws a Board and maps touches on the view onto it
+class BoardRenderer
+{
+    private static final int tunnel_size = 58;
+    private final GameResources gr;
+    private final SpriteCache sc;
+    private final Board board;      // What is drawn
+    private final Board game;       // The game itself; see publish()
+    private final Handoff handoff;
+    public final InputQueue input;
+    private final BitmapBlitter[][] tunnels;
+    private float scale = 0f;
+    private Tutorial tutorial = null;
+    private Hints hints = null;
+    private Latency to_tick, to_draw;
+
+    // Draws a board that isn't being played, as is
+    public BoardRenderer(GameResources gr, SpriteCache sc, Board board)
+    {
+        this(gr, sc, board, board, null);
+    }
+
+    // Draws a game that is being played on another thread.  The view
+    // is a board of the same level, which follows the game by way of
+    // publish(), and touches reach the game by way of input.
+    public BoardRenderer(GameResources gr, SpriteCache sc,
+                         Board game, Board view)
+    {
+        this(gr, sc, game, view, new Handoff());
+    }
+
+    private BoardRenderer(GameResources gr, SpriteCache sc,
+                          Board game, Board view, Handoff handoff)
+    {
+        this.gr = gr;
+        this.sc = sc;
+        this.board = view;
+        this.game = game;
+        this.handoff = handoff;
+        this.input = new InputQueue();
+
+        sc.cache( R.drawable.backdrop);
+        sc.cache( R.drawable.misc);
+
+        // Prepare the tunnel walls, onto which the caps are drawn
+        tunnels = new BitmapBlitter[Board.vert_tiles][Board.horiz_tiles];
+        for(Tile[] row : board.tiles)
+            for(Tile tile : row)
+                if(tile instanceof TunnelTile)
+                    tunnels[tile.tile_y][tile.tile_x] = make_tunnel(tile);
+
+        // Set up the tutorial if required
+        int level = board.level;
+        if( level == 0) {
+            tutorial = new Tutorial(gr, board, 0);
+        } else if( level == 1) {
+            tutorial = new Tutorial(gr, board, 4);
+        } else if( level == 2) {
+            tutorial = new Tutorial(gr, board, 8);
+        } else if( level == 8) {
+            tutorial = new Tutorial(gr, board, 9);
+        }
+    }
+
+    public void setHints(Hints hints) {
+        this.hints = hints;
+    }
+
+    // Where to add the latency of each touch once it has been drawn
+    public void setLatency(Latency to_tick, Latency to_draw) {
+        this.to_tick = to_tick;
+        this.to_draw = to_draw;
+    }
+
+    // Called on the game's thread after each tick
+    public void publish() {
+        game.save(handoff.back());
+        handoff.publish();
+    }
+
+    // Brings the view up to date with the newest tick published
+    public void sync() {
+        if( handoff == null) return;
+        Snapshot s = handoff.take();
+        if( s != null) board.restore(s);
+    }
+
+    public Board view() {
+        return board;
+    }
+
+    private static long tunnel_uniq(Tile tile) {
+        return 0x700000000L+(tile.left<<16)+tile.top;
+    }
+
+    private BitmapBlitter make_tunnel(Tile tile) {
+        BitmapBlitter b = new BitmapBlitter(sc,tunnel_size,tunnel_size);
+        final int paths = tile.paths;
+        final int offset = (Tile.tile_size - tunnel_size)/2;
+        b.blit( R.drawable.misc, 446, (paths&1)==0?93:113,
+            56, 9, 18-offset, 18-offset);
+        b.blit( R.drawable.misc, 503, (paths&2)==0?57:171,
+            9, 56, 65-offset, 18-offset);
+        b.blit( R.drawable.misc, 446, (paths&4)==0?103:123,
+            56, 9, 18-offset, 65-offset);
+        b.blit( R.drawable.misc, 503, (paths&8)==0?0:114,
+            9, 56, 18-offset, 18-offset);
+        b.pushTransform(1f,-tile.left-offset,-tile.top-offset);
+        return b;
+    }
+
+    private void draw_mid( Blitter b)
+    {
+        // Draw the launch timer
+        int timerColor = 0x40404040;
+        float timeLeft = board.launch_timeout / 1000f;
+        if( timeLeft < 3.5f) {
+            // Make the timer flash to indicate that time
+            // is running out.
+            float s = (float)Math.sin(timeLeft*5);
+            int phase = Math.round(s*s*191);
+            timerColor = 0x40404040 + (phase<<16) + ((phase*2/3)<<24);
+        }
+        int y = (board.launch_timeout*Board.board_height+board.launch_timeout_start/2) /
+            board.launch_timeout_start;
+        b.fill(timerColor, 0, Marble.marble_size,
+            Marble.marble_size, Board.board_height - y);
+
+        // Indicate how many live balls remain
+        int ybase = Board.board_height-2;
+        for( int i=0; i < board.live_marbles_limit - board.marbles.size(); ++i) {
+            b.blit(R.drawable.misc, 0, 611, 16, 16,
+                    Marble.marble_size/2 - 8, ybase - Marble.marble_size * i,
+                    16, 16);
+        }
+
+        draw_marble_queue(b);
+    }
+
+    private void draw_marble_queue(Blitter b)
+    {
+        // Draw the marble queue
+        int iOffset = Math.round(board.launch_queue_offset);
+        for(int i=0; i < Board.launch_queue_size; ++i)
+            b.blit(R.drawable.misc, 28*board.launch_color(i), 357, 28, 28,
+                iOffset + i * Marble.marble_size, 0);
+    }
+
+    private void draw_back( Blitter b, Tile tile)
+    {
+        draw_paths(b, tile);
+
+        int left = tile.left, top = tile.top;
+        switch( tile.kind) {
+        case Tile.WHEEL: {
+            Wheel w = (Wheel)tile;
+            draw_wheel(b, w.marbles, left, top, w.spinpos, w.completed);
+            break;
+        }
+        case Tile.BUFFER: {
+            int color = ((Buffer)tile).marble;
+            if( color >= 0) {
+                b.blit( R.drawable.misc, color*28, 357, 28, 28,
+                    left + (Tile.tile_size-Marble.marble_size)/2,
+                    top + (Tile.tile_size-Marble.marble_size)/2);
+            } else {
+                b.blit( R.drawable.misc, 418, 166, 38, 38, left+27, top+27);
+            }
+            break;
+        }
+        case Tile.TRIGGER: {
+            Trigger t = (Trigger)tile;
+            b.blit( R.drawable.misc, 369, 0, 92, 92, left, top);
+            if( t.armed) {
+                for(int i=0; i<4; ++i) {
+                    b.blit( R.drawable.misc,
+                        28*t.color(i), 357, 28, 28,
+                        Wheel.holecenter_x(0, i)+left-Marble.marble_size/2,
+                        Wheel.holecenter_y(0, i)+top-Marble.marble_size/2);
+                }
+            }
+            break;
+        }
+        case Tile.STOPLIGHT: {
+            Stoplight s = (Stoplight)tile;
+            b.blit( R.drawable.misc, 462, 0, 36, 92, left+28, top);
+            for(int i=s.current; i < 3; ++i) {
+                b.blit( R.drawable.misc, s.color(i)*28, 357, 28, 28,
+                    left + Tile.tile_size/2 - 14, top + 3 + (29*i));
+            }
+            break;
+        }
+        }
+    }
+
+    private static void draw_paths( Blitter b, Tile tile)
+    {
+        int paths = tile.paths, left = tile.left, top = tile.top;
+        if(paths > 0) {
+            if( (paths & 1) != 0)
+                b.blit( R.drawable.misc,
+                    192, 387, 30, 24, left+31, top);
+            if( (paths & 2) != 0)
+                b.blit( R.drawable.misc,
+                    415, 394, 24, 30, left+68, top+31);
+            if( (paths & 4) != 0)
+                b.blit( R.drawable.misc,
+                    192, 387, 30, 24, left+31, top+68);
+            if( (paths & 8) != 0)
+                b.blit( R.drawable.misc,
+                    415, 394, 24, 30, left, top+31);
+            b.blit( R.drawable.misc,
+                46*((paths+10)%11), 386+46*(paths/11), 46, 46,
+                left+23, top+23);
+            if( (paths & 8) > 0 && tile.tile_x == 0) {
+                b.blit( R.drawable.misc, 299, 386, 28, 46,
+                    left-14,top+23);
+            }
+        }
+    }
+
+    public static void draw_wheel(Blitter b, int marbles,
+                            int left, int top, int spinpos, boolean completed) {
+        if( spinpos != 0) {
+            b.blit(R.drawable.misc, completed?0:92, 0, 92, 92, left, top);
+            for(int i=0; i<4; ++i) {
+                int holecenter_x = Wheel.holecenter_x(spinpos, i);
+                int holecenter_y = Wheel.holecenter_y(spinpos, i);
+                b.blit( R.drawable.misc, completed?483:455, 633, 28, 28,
+                    holecenter_x-Marble.marble_size/2+left,
+                    holecenter_y-Marble.marble_size/2+top);
+            }
+        } else {
+            b.blit(R.drawable.misc, completed?184:276, 0, 92, 92, left, top);
+        }
+
+        for( int i=0; i < 4; ++i) {
+            int color = Marble.unpack(marbles, i);
+            if( color >= 0) {
+                int holecenter_x = Wheel.holecenter_x(spinpos, i);
+                int holecenter_y = Wheel.holecenter_y(spinpos, i);
+                b.blit( R.drawable.misc, 28*color, 357, 28, 28,
+                    holecenter_x-Marble.marble_size/2+left,
+                    holecenter_y-Marble.marble_size/2+top);
+            }
+        }
+    }
+
+    // Highlight the wheel to turn, or the marble to flick out
+    private void draw_hint( Blitter b) {
+        if( hints == null) return;
+        int hint = hints.best();
+        if( hint < 0) return;   // No answer yet, or nothing to do
+        int index = hint / 5, action = hint % 5;
+        Tile tile = board.tiles[index / Board.horiz_tiles]
+            [index % Board.horiz_tiles];
+        if( action == Board.CLICK) {
+            b.fill(0x40ffff80, tile.left, tile.top,
+                Tile.tile_size, Tile.tile_size);
+        } else {
+            b.fill(0x80ffff80,
+                tile.left + Wheel.holecenter_x(0, action) - Marble.marble_size/2,
+                tile.top + Wheel.holecenter_y(0, action) - Marble.marble_size/2,
+                Marble.marble_size, Marble.marble_size);
+        }
+    }
+
+    private void draw_marbles( Blitter b) {
+        final Marbles marbles = board.marbles;
+        for( int i=0; i < marbles.span(); ++i) {
+            int m = marbles.at(i);
+            if( !marbles.isAlive(m)) continue;
+
+            // Draw the marble between pixels if it is between them
+            float f = (float)marbles.frac[m] / (1 << Marble.frac_bits);
+            int dir = marbles.direction[m];
+            if( f != 0f) b.pushTransform(1f, f*Marble.dx[dir], f*Marble.dy[dir]);
+            b.blit( R.drawable.misc, 28*marbles.color[m], 357, 28, 28,
+                marbles.left[m], marbles.top[m],
+                Marble.marble_size, Marble.marble_size);
+            if( f != 0f) b.popTransform();
+        }
+    }
+
+    private void draw_fore( Blitter b) {
+        final int offset = (Tile.tile_size - tunnel_size)/2;
+        for(Tile[] row : board.tiles) {
+            for(Tile tile : row) {
+                BitmapBlitter tunnel = tunnels[tile.tile_y][tile.tile_x];
+                if( tunnel == null) continue;
+                long uniq = tunnel_uniq(tile);
+                draw_cap(tunnel, tile);
+                sc.cache(uniq, tunnel.getDest());
+                b.blit(uniq, tile.left+offset, tile.top+offset);
+            }
+        }
+    }
+
+    private static void draw_cap( Blitter b, Tile tile) {
+        int left = tile.left, top = tile.top;
+        switch( tile.kind) {
+        case Tile.BUFFER:
+            b.blit( R.drawable.misc, 456, 166, 38, 38, left+27, top+27);
+            break;
+        case Tile.DIRECTOR: {
+            int direction = ((Director)tile).direction;
+            b.blit( R.drawable.misc,
+                38*direction, 204, 38, 38, left+27, top+27);
+            break;
+        }
+        case Tile.FILTER: {
+            int color = ((Filter)tile).color;
+            b.blit( R.drawable.misc,
+                152+color*38, 204, 38, 38, left+27, top+27);
+            break;
+        }
+        case Tile.PAINTER: {
+            int color = ((Painter)tile).color;
+            b.blit( R.drawable.misc,
+                38*color+(color<6?266:-228), color<6?242:280, 38, 38,
+                left+27, top+27);
+            break;
+        }
+        case Tile.REPLICATOR:
+            b.blit( R.drawable.misc, 380, 280, 38, 38, left+27, top+27);
+            break;
+        case Tile.SHREDDER:
+            b.blit( R.drawable.misc, 418, 280, 38, 38, left+27, top+27);
+            break;
+        case Tile.SWITCH: {
+            Switch s = (Switch)tile;
+            final int i = (s.curdir*4+s.otherdir)*4/5;
+            b.blit( R.drawable.misc,
+                38*i + (i<1?456:-38), i<1?280:318, 38, 38,
+                left+27, top+27);
+            break;
+        }
+        case Tile.TELEPORTER: {
+            int image = ((tile.paths & 5) == 0) ? 418 : 456;
+            b.blit( R.drawable.misc, image, 318, 38, 38, left+27, top+27);
+            break;
+        }
+        }
+    }
+
+    private int makeRGBA(int rgb, int alpha) {
+        return (alpha<<24)|rgb;
+    }
+
+    private void drawPauseButton(Blitter b)
+    {
+        if(board.board_state != Board.INCOMPLETE) return;
+        int intensity = (int)((game.clock.uptimeMillis() - game.pause_changed) / 2);
+        if( intensity > 255) intensity = 255;
+        if(!game.isPaused()) intensity ^= 0xff;
+        if(intensity == 0) return;
+
+        int borderColor = makeRGBA(0x000000, intensity/2);
+        int color = makeRGBA(0xd0d0d0, intensity);
+
+        int thickness = b.getWidth()/30;
+        int spacing = thickness * 4/5;
+        int height = thickness * 4;
+        int x = (b.getWidth() - 2*thickness - spacing) / 2;
+        int y = (b.getHeight() - height) / 2;
+        b.fill(borderColor, 0, 0,
+            b.getWidth(), b.getHeight());
+        b.fill(color, x, y, thickness, height);
+        b.fill(color, x+thickness+spacing, y,
+               thickness, height);
+    }
+
+    public void paint(Blitter b, boolean includeBottomMargin)
+    {
+        final int screen_width = Board.screen_width;
+        final int screen_height = Board.screen_height;
+        final int board_height = Board.board_height;
+        sync();
+        if( to_draw != null)
+            input.shown(board.ticks, game.clock.uptimeMillis(),
+                to_tick, to_draw);
+        int width = b.getWidth();
+        int height = b.getHeight() - (includeBottomMargin ? 30 : 0);
+        scale = height * screen_width < width * screen_height ?
+            (float)height / screen_height : (float)width / screen_width;
+
+        // Draw the background
+        b.blit( R.drawable.backdrop, 0, 0, width, b.getHeight());
+
+        // Black-out the top edge of the backdrop
+        b.fill( 0xff000000, 0, 0,
+                width, Math.round(Marble.marble_size/2 * scale));
+
+        b.pushTransform( scale, 1, 0);
+
+        // Draw the launcher
+        b.blit( R.drawable.misc, 192, 387, 30, 1,
+                -1, Marble.marble_size, 30, board_height - Marble.marble_size);
+        b.blit( R.drawable.misc, 415, 394, 1, 30,
+                30, -1, (int)Math.ceil(width / scale), 30);
+        b.blit( R.drawable.misc, 8, 386, 30, 38,
+                -1, board_height + Marble.marble_size - 38);
+        b.blit( R.drawable.misc, 238, 394, 38, 38, -1, -1);
+
+        b.pushTransform( 1f, Marble.marble_size, Marble.marble_size);
+
+        for( Tile[] row : board.tiles)
+            for( Tile tile : row)
+                draw_back(b, tile);
+
+        draw_hint(b);
+
+        b.popTransform();
+
+        // Draw the middle
+        draw_mid(b);
+
+        b.pushTransform( 1f, Marble.marble_size, Marble.marble_size);
+        // Draw all of the marbles
+        draw_marbles(b);
+
+        // Draw the foreground
+        draw_fore(b);
+
+        if( tutorial != null && b instanceof CanvasBlitter) {
+            tutorial.paint((CanvasBlitter)b,
+                    - board.board_timeout / 1000f);
+        }
+
+        b.popTransform();
+        b.popTransform();
+
+        drawPauseButton(b);
+    }
+
+    public void downEvent(int pointerId, float x, float y, long time)
+    {
+        if(scale == 0f) return;
+        input.down(pointerId,
+            Math.round(x / scale), Math.round(y / scale), time);
+    }
+
+    public void moveEvent(int pointerId, float x, float y, long time)
+    {
+        if(scale == 0f) return;
+        input.move(game, pointerId,
+            Math.round(x / scale), Math.round(y / scale), time);
+    }
+
+    public void upEvent(int pointerId, float x, float y, long time)
+    {
+        if(scale == 0f) return;
+        if(input.up(game, pointerId,
+                Math.round(x / scale), Math.round(y / scale), time) &&
+           gr.context instanceof GameActivity) {
+            ((GameActivity)gr.context).resume();
+        }
+    }
+}
@@ -32,11 +32,17 @@ import com.google.android.gms.ads.InterstitialAd;
 @SuppressWarnings("unused")
 public class GameActivity extends Activity
 {
-    public static final int frames_per_sec = 50;
+    private static final int max_tick_rate = 120;
+    private static final int slow_start_us = 400000;  // See Board.delay
 
     private final Handler h = new Handler();
     public int level;
-    private Board board;
+    private int tick_rate;          // The display's refresh rate
+    private boolean slow_tick;      // Only touched by the game's thread
+    // The board is played on the game loop's thread; see BoardRenderer
+    private volatile Board board;
+    private volatile BoardRenderer renderer;
+    private volatile Hints hints;
     private GameResources gr;
     private GameLoop gameLoop;
     private GameView gv;
@@ -45,6 +51,19 @@ public class GameActivity extends Activity
     public static BitmapBlitter bg;
     private MutableMusicPlayer music;
     private InterstitialAd mLevelFailedInterstitial;
+    private int[] saved_board;
+    private boolean saved_paused;
+    private volatile boolean hud_posted;
+    private final Events events = new Events();
+    private Events.Reader hud_events;
+    private int score;              // As shown
+    private HandlerThread sound_thread;
+    private Handler sound_handler;
+    private volatile boolean sounds_posted;
+
+    // From each touch to when it takes effect, over the session
+    private final Latency to_tick = new Latency("touch to tick");
+    private final Latency to_draw = new Latency("touch to draw");
 
     public GameActivity()
     {
@@ -66,6 +85,9 @@ public class GameActivity extends Activity
         if( stat != null) {
             // Restore the game state
             level = stat.getInt("level");
+            if( stat.getInt("board_version") == Board.snapshot_version)
+                saved_board = stat.getIntArray("board");
+            saved_paused = stat.getBoolean("paused");
         } else {
             // Begin a new game
             Bundle extras = getIntent().getExtras();
@@ -96,37 +118,98 @@ public class GameActivity extends Activity
 
         Runnable update = new Runnable() {
             public void run() {
-                if(board == null) return;
-                if(board.delay>20) {
-                    --board.delay;
-                    return;
-                }
+                BoardRenderer renderer = GameActivity.this.renderer;
+                if(renderer == null) return;
+                renderer.input.apply(board);
                 if(board.delay>0) {
-                    --board.delay;
-                    if((board.delay&1) != 0) return;
-                }
-                int status = board.update();
-                update_board_timer();
-                score_view.setText(String.valueOf(board.score()));
-                switch(status) {
-                case Board.LAUNCH_TIMEOUT:
-                    onLaunchTimeout();
-                    break;
-                case Board.BOARD_TIMEOUT:
-                    onBoardTimeout();
-                    break;
-                case Board.COMPLETE:
-                    onBoardComplete();
-                    break;
+                    // Hold the board still as the level starts, then
+                    // run it at half speed until the delay is up
+                    board.delay -= 1000000 / tick_rate;
+                    if(board.delay>slow_start_us) return;
+                    slow_tick = !slow_tick;
+                    if(slow_tick) return;
                 }
+                final int status = board.update();
+                Hints hints = GameActivity.this.hints;
+                if(hints != null) hints.follow(board);
+                renderer.publish();
+                if(status == Board.INCOMPLETE) return;
+                gr.saveReplay(board.recording());
+                h.post(new Runnable() {
+                    public void run() {
+                        stopHints();
+                        switch(status) {
+                        case Board.LAUNCH_TIMEOUT:
+                            onLaunchTimeout();
+                            break;
+                        case Board.BOARD_TIMEOUT:
+                            onBoardTimeout();
+                            break;
+                        case Board.COMPLETE:
+                            onBoardComplete();
+                            break;
+                        }
+                    }
+                });
+            }
+        };
+        // The heads-up display is brought up to date along with
+        // the board, at most once per frame
+        hud_events = events.reader();
+        final Events.Listener hud_listener = new Events.Listener() {
+            public void event(int type, int value, int tick) {
+                if(type == Events.SCORE) score += value;
+            }
+        };
+        final Runnable hud = new Runnable() {
+            public void run() {
+                hud_posted = false;
+                BoardRenderer renderer = GameActivity.this.renderer;
+                if(renderer == null) return;
+                renderer.sync();
+                update_board_timer(renderer.view());
+                if(hud_events.drain(hud_listener) > 0)
+                    score_view.setText(String.valueOf(score));
+            }
+        };
+
+        // Sounds are played on a thread of their own, since SoundPool
+        // can take a while to start one
+        sound_thread = new HandlerThread("sounds",
+            android.os.Process.THREAD_PRIORITY_AUDIO);
+        sound_thread.start();
+        sound_handler = new Handler(sound_thread.getLooper());
+        final Events.Reader sound_events = events.reader();
+        final Events.Listener sound_listener = new Events.Listener() {
+            public void event(int type, int value, int tick) {
+                if(type == Events.SOUND) gr.play_sound(value);
+            }
+        };
+        final Runnable sounds = new Runnable() {
+            public void run() {
+                sounds_posted = false;
+                sound_events.drain(sound_listener);
             }
         };
+
         Runnable render = new Runnable() {
             public void run() {
-                gv.invalidate();
+                gv.postInvalidate();
+                if(!sounds_posted) {
+                    sounds_posted = true;
+                    sound_handler.post(sounds);
+                }
+                if(!hud_posted) {
+                    hud_posted = true;
+                    h.post(hud);
+                }
             }
         };
-        gameLoop = new GameLoop( update, render, 1000 / frames_per_sec);
+        // Tick the game once per frame, within reason
+        float refresh = getWindowManager().getDefaultDisplay().getRefreshRate();
+        tick_rate = Math.max(Board.frames_per_sec,
+            Math.min(Math.round(refresh), max_tick_rate));
+        gameLoop = new GameLoop( update, render, tick_rate);
 
         music = new MutableMusicPlayer(this, R.raw.background,
                 (ImageView)findViewById(R.id.mute_music));
@@ -135,11 +218,11 @@ public class GameActivity extends Activity
         playLevel(level);
     }
 
-    private void update_board_timer()
+    private void update_board_timer(Board board)
     {
         // Draw the board timer
         int timerColor = 0xff000080;
-        float timeLeft = (float)board.board_timeout / frames_per_sec;
+        float timeLeft = board.board_timeout / 1000f;
         if( timeLeft < 60f && board.board_timeout*2 < board.board_timeout_start) {
             // Make the timer flash to indicate that time
             // is running out.
@@ -165,23 +248,54 @@ public class GameActivity extends Activity
 
     private void loadLevel(int level) {
         this.level = level;
-        board = new Board(gr, gr.sc, level, new Runnable() {
-            public void run() {
-                h.post(gameLoop);
-            }
-        });
+        gameLoop.stop();
+        stopHints();
+        renderer = null;
+        board = gr.loadBoard(level);
+        final boolean resumed = saved_board != null && restoreSaved(board);
+        if( saved_board != null && !resumed) board = gr.loadBoard(level);
+        final boolean paused = resumed && saved_paused;
+        saved_board = null;
+        saved_paused = false;
+
+        // The snapshot leaves the tick rate to us, as it may have changed
+        // along with the display
+        board.set_tick_rate(tick_rate);
+        board.send_events(events);
+        final BoardRenderer renderer = new BoardRenderer(gr, gr.sc, board,
+            gr.loadBoard(level, Sounds.silent));
+        renderer.setLatency(to_tick, to_draw);
         final String title = (level+1) + ". " + board.name;
 
         h.post( new Runnable() {
             public void run() {
                 ((TextView)findViewById(R.id.board_name)).setText(title);
-                board.launch_marble();
-                gv.setBoard(board);
+                if( !resumed) board.launch_marble();
+                if( paused) pause();
+                board.record(new Replay(board.level, board.seed));
+                hud_events.skip();
+                score = board.score();
+                score_view.setText(String.valueOf(score));
+                renderer.publish();
+                GameActivity.this.renderer = renderer;
+                gv.setBoard(renderer);
                 gameLoop.start();
             }
         });
     }
 
+    // Picks up where the game left off, unless the level had ended
+    private boolean restoreSaved(Board board) {
+        Snapshot s = new Snapshot();
+        s.load(saved_board);
+        try {
+            board.restore(s);
+        } catch(IllegalArgumentException e) {
+            return false;
+        }
+        return board.board_state == Board.INCOMPLETE;
+    }
+
     @Override
     public void onResume()
     {
@@ -195,6 +309,18 @@ public class GameActivity extends Activity
     protected void onSaveInstanceState(Bundle out) {
         super.onSaveInstanceState(out);
         out.putInt("level",level);
+        if( renderer == null) return;
+
+        // The game may still be running, so save what was drawn.  A
+        // level that has ended is started over instead.
+        renderer.sync();
+        Board view = renderer.view();
+        if( view.board_state != Board.INCOMPLETE) return;
+        Snapshot s = new Snapshot();
+        view.save(s);
+        out.putInt("board_version", Board.snapshot_version);
+        out.putIntArray("board", s.toArray());
+        out.putBoolean("paused", board.isPaused());
     }
 
     @Override
@@ -202,6 +328,8 @@ public class GameActivity extends Activity
     {
         super.onPause();
         gameLoop.stop();
+        stopHints();
+        gr.saveLatency(to_tick.report() + "\n" + to_draw.report() + "\n");
     }
 
     @Override
@@ -220,6 +348,7 @@ public class GameActivity extends Activity
     protected void onDestroy()
     {
         super.onDestroy();
+        sound_thread.quit();
         gr.destroy();
         music.stop();
     }
@@ -406,6 +535,31 @@ public class GameActivity extends Activity
         else pause();
     }
 
+    // Highlights the most promising move until the button is pressed
+    // again, from the hint book where it can, and otherwise working it
+    // out in the background as the game goes on.  Whether the level has
+    // ended is taken from the board as drawn, which belongs to this
+    // thread, rather than from the game.
+    public void toggleHints(View v) {
+        BoardRenderer renderer = this.renderer;
+        if( hints != null) {
+            stopHints();
+        } else if( renderer != null &&
+                renderer.view().board_state == Board.INCOMPLETE) {
+            hints = new Hints(gr.loadBoard(level, Sounds.silent),
+                gr.hintBook());
+            hints.start();
+            renderer.setHints(hints);
+        }
+    }
+
+    private void stopHints() {
+        if( hints == null) return;
+        hints.stop();
+        hints = null;
+        if( renderer != null) renderer.setHints(null);
+    }
+
     public void retry(View v) {
         if( level > 5 && mLevelFailedInterstitial.isLoaded() &&
                 MainActivity.lastInterstitialTime <
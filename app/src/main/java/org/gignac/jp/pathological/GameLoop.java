@@ -15,52 +15,75 @@
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 package org.gignac.jp.pathological;
-import android.os.*;
+import android.os.Process;
 
+// Runs the update step on a thread of its own, at a fixed rate, so that
+// slow drawing or layout on the main thread can't hold up the game,
+// nor the other way round.  After each round of updates comes the
+// render step, which should just hand the result over to be drawn.
+// If the thread falls far behind, it skips ahead rather than running
+// more than a few updates back to back.
 class GameLoop
     implements Runnable
 {
-    private final Handler handler = new Handler();
     private final Runnable update;
     private final Runnable render;
-    private final long delayMillis;
-    private long targetTime;
-    private boolean rendering = false;
+    private final long period;      // In nanoseconds
+    private Thread thread;          // Only touched by the main thread
+    private volatile boolean running;
 
-    public GameLoop(Runnable update, Runnable render, int delayMillis) {
+    public GameLoop(Runnable update, Runnable render, int hz) {
         this.update = update;
         this.render = render;
-        this.delayMillis = delayMillis;
+        this.period = 1000000000L / hz;
     }
 
     public void start() {
-        targetTime = SystemClock.uptimeMillis()+delayMillis;
-        handler.removeCallbacks(this);
-        handler.postAtTime(this, targetTime);
+        if( thread != null) return;
+        running = true;
+        thread = new Thread(this, "game");
+        thread.start();
     }
 
+    // Returns once the last update has finished
     public void stop() {
-        handler.removeCallbacks(this);
+        if( thread == null) return;
+        synchronized(this) {
+            running = false;
+            notify();
+        }
+        try {
+            thread.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
     }
 
     public void run() {
-        long curTime = SystemClock.uptimeMillis();
-        if(rendering) {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_DISPLAY);
+        long targetTime = System.nanoTime() + period;
+        while( running) {
+            long curTime = System.nanoTime();
             if( curTime < targetTime) {
-                handler.postAtTime(this,targetTime);
-                rendering = false;
-                return;
+                sleep(targetTime - curTime);
+                continue;
             }
-            while( SystemClock.uptimeMillis() >= targetTime + 4*delayMillis)
-                targetTime += delayMillis;
-            while( SystemClock.uptimeMillis() >= targetTime) {
+            while( curTime >= targetTime + 4*period) targetTime += period;
+            while( running && System.nanoTime() >= targetTime) {
                 update.run();
-                targetTime += delayMillis;
+                targetTime += period;
             }
+            render.run();
+        }
+    }
+
+    private synchronized void sleep(long nanos) {
+        if( !running) return;
+        try {
+            wait(nanos / 1000000, (int)(nanos % 1000000));
+        } catch(InterruptedException e) {
+            running = false;
         }
-        update.run();
-        targetTime += delayMillis;
-        render.run();
-        rendering = true;
     }
 }
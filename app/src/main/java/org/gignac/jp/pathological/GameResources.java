@@ -18,18 +18,24 @@ package org.gignac.jp.pathological;
 import android.graphics.Point;
 import android.media.*;
 import android.content.*;
+import android.content.res.AssetFileDescriptor;
 import android.os.Build;
+import android.os.SystemClock;
 
 import java.util.*;
 import java.io.*;
+import java.nio.channels.FileChannel;
 
 @SuppressWarnings("WeakerAccess")
 public class GameResources
+    implements Sounds
 {
     private static GameResources instance;
     private static SharedPreferences shp;
     public Context context;
-    public final Random random;
+    private static final String replay_file = "last_replay";
+    private static final String latency_file = "latency.txt";
+    private static final String hint_book_asset = "hints.bin";
     private static final int[] sound_resid = {
         R.raw.filter_admit, R.raw.wheel_turn, R.raw.wheel_completed,
         R.raw.change_color, R.raw.direct_marble, R.raw.ping,
@@ -43,29 +49,15 @@ public class GameResources
     private final int[] sound_id = new int[sound_resid.length];
     private SoundPool sp;
     public final SpriteCache sc;
+    public final Clock clock = new Clock() {
+        public long uptimeMillis() {
+            return SystemClock.uptimeMillis();
+        }
 
-    // Sounds
-    public static final int filter_admit = 0;
-    public static final int wheel_turn = 1;
-    public static final int wheel_completed = 2;
-    public static final int change_color = 3;
-    public static final int direct_marble = 4;
-    public static final int ping = 5;
-    public static final int trigger_setup = 6;
-    public static final int teleport = 7;
-    public static final int marble_release = 8;
-    public static final int levelfinish = 9;
-    public static final int die = 10;
-    public static final int incorrect = 11;
-    public static final int switched = 12;
-    public static final int shredder = 13;
-    public static final int replicator = 14;
-
-    public static final int wheel_margin = 4;
-    public static final int wheel_steps = 9;
-    public final int holecenter_radius;
-    public final int[][] holecenters_x;
-    public final int[][] holecenters_y;
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
 
     public final int numlevels;
     public Vector<String> boardNames;
@@ -73,6 +65,7 @@ public class GameResources
     public Vector<int[]> fromBoards;
     public int maxXPos;
     private final boolean[] mIsUnlocked;
+    private HintBook hintBook;
 
     public static synchronized GameResources getInstance(Context context) {
         if(instance == null) instance = new GameResources(context);
@@ -103,29 +96,6 @@ public class GameResources
                 }
             }
         }
-
-        random = new Random();
-
-        // The positions of the holes in the wheels in
-        // each rotational position
-        holecenter_radius = (Tile.tile_size - Marble.marble_size) / 2 - wheel_margin;
-        holecenters_x = new int[wheel_steps][];
-        holecenters_y = new int[wheel_steps][];
-        for( int i=0; i<wheel_steps; ++i) {
-            double theta = Math.PI * i / (2 * wheel_steps);
-            double c = Math.floor( 0.5 + Math.cos(theta)*holecenter_radius);
-            double s = Math.floor( 0.5 + Math.sin(theta)*holecenter_radius);
-            holecenters_x[i] = new int[4];
-            holecenters_y[i] = new int[4];
-            holecenters_x[i][0] = (int)Math.round(Tile.tile_size/2 + s);
-            holecenters_y[i][0] = (int)Math.round(Tile.tile_size/2 - c);
-            holecenters_x[i][1] = (int)Math.round(Tile.tile_size/2 + c);
-            holecenters_y[i][1] = (int)Math.round(Tile.tile_size/2 + s);
-            holecenters_x[i][2] = (int)Math.round(Tile.tile_size/2 - s);
-            holecenters_y[i][2] = (int)Math.round(Tile.tile_size/2 + c);
-            holecenters_x[i][3] = (int)Math.round(Tile.tile_size/2 - c);
-            holecenters_y[i][3] = (int)Math.round(Tile.tile_size/2 - s);
-        }
     }
 
     public void create() {
@@ -167,6 +137,15 @@ public class GameResources
         return context.getResources().openRawResource(resid);
     }
 
+    public Board loadBoard(int level) {
+        return loadBoard(level, this);
+    }
+
+    public Board loadBoard(int level, Sounds sounds) {
+        return new Board(sounds, clock,
+            openRawResource(R.raw.all_boards), level);
+    }
+
     public int nextLevel(int level) {
         return nextLevel(level, level+1);
     }
@@ -233,6 +212,58 @@ public class GameResources
         }
     }
 
+    // Keep the most recent game in the files dir, where it can be
+    // pulled from the device to replay with the benchmark tools
+    public void saveReplay(Replay replay) {
+        OutputStream out = null;
+        try {
+            try {
+                out = context.openFileOutput(replay_file, Context.MODE_PRIVATE);
+                out.write(replay.toByteArray());
+            } finally {
+                if( out != null) out.close();
+            }
+        } catch( IOException e) {
+            // Ignore
+        }
+    }
+
+    public void saveLatency(String report) {
+        OutputStream out = null;
+        try {
+            try {
+                out = context.openFileOutput(latency_file, Context.MODE_PRIVATE);
+                out.write(report.getBytes("UTF-8"));
+            } finally {
+                if( out != null) out.close();
+            }
+        } catch( IOException e) {
+            // Ignore
+        }
+    }
+
+    // The hints worked out ahead of time.  The asset is stored
+    // uncompressed, so it can be mapped instead of read in.
+    public HintBook hintBook() {
+        if( hintBook != null) return hintBook;
+        try {
+            AssetFileDescriptor fd = context.getAssets().openFd(hint_book_asset);
+            FileInputStream in = fd.createInputStream();
+            try {
+                hintBook = new HintBook(in.getChannel().map(
+                    FileChannel.MapMode.READ_ONLY,
+                    fd.getStartOffset(), fd.getLength()));
+            } finally {
+                in.close();
+            }
+        } catch( IOException e) {
+            // Hints will be searched for instead
+        } catch( IllegalArgumentException e) {
+            // Made with another engine, so searched for instead
+        }
+        return hintBook;
+    }
+
     public static void setup(Context context) {
         shp = context.getSharedPreferences(
                 "org.gignac.jp.pathological.Pathological", Context.MODE_PRIVATE);
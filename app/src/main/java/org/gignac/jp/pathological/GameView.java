@@ -26,14 +26,14 @@ import android.view.View;
 public class GameView extends View
 {
     private final CanvasBlitter b;
-    private Board board;
+    private BoardRenderer board;
 
     public GameView(Context c,AttributeSet a) {
         super(c,a);
         b = new CanvasBlitter(GameResources.getInstance(c).sc);
     }
 
-    public void setBoard(Board board) {
+    public void setBoard(BoardRenderer board) {
         this.board = board;
     }
 
@@ -54,11 +54,23 @@ public class GameView extends View
         switch(action & MotionEvent.ACTION_MASK) {
         case MotionEvent.ACTION_DOWN:
         case MotionEvent.ACTION_POINTER_DOWN:
-            board.downEvent(id,e.getX(index),e.getY(index));
+            board.downEvent(id,e.getX(index),e.getY(index),e.getEventTime());
             return true;
         case MotionEvent.ACTION_UP:
         case MotionEvent.ACTION_POINTER_UP:
-            board.upEvent(id,e.getX(index),e.getY(index));
+            board.upEvent(id,e.getX(index),e.getY(index),e.getEventTime());
+            return true;
+        case MotionEvent.ACTION_MOVE:
+            // Pass on the samples batched up since the last event too,
+            // so that a flick is seen as early as possible
+            final int history = e.getHistorySize();
+            for(int p=0; p < e.getPointerCount(); ++p) {
+                final int pid = e.getPointerId(p);
+                for(int h=0; h < history; ++h)
+                    board.moveEvent(pid,e.getHistoricalX(p,h),
+                        e.getHistoricalY(p,h),e.getHistoricalEventTime(h));
+                board.moveEvent(pid,e.getX(p),e.getY(p),e.getEventTime());
+            }
             return true;
         }
 
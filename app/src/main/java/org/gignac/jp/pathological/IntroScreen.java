@@ -45,9 +45,9 @@ class IntroScreen
 
         // Marble in top-left wheel
         b.blit(R.drawable.misc,56,357,28,28,
-            gr.holecenters_x[0][0]-Marble.marble_size/2,
+            Wheel.holecenter_x(0, 0)-Marble.marble_size/2,
             b.getHeight()-181 +
-                gr.holecenters_y[0][0]-Marble.marble_size/2);
+                Wheel.holecenter_y(0, 0)-Marble.marble_size/2);
 
         // Bottom-left wheel
         b.blit(R.drawable.misc,185,1,90,90,0,b.getHeight()-90);
@@ -50,7 +50,7 @@ class Preview
 
         if(b == null) b = new BitmapBlitter(s,
             width*supersample, height*supersample);
-        new Board(gr,s,level,null).paint(b, false);
+        new BoardRenderer(gr,s,gr.loadBoard(level)).paint(b, false);
 
         dest.left = (width+1)*(relLevel/rows);
         dest.top = (height+1)*(relLevel%rows);
@@ -9,10 +9,11 @@ import android.text.TextPaint;
 class Tutorial {
     private static final Paint paint = new Paint();
     private static final RectF rect = new RectF();
-    private static final int[] marbles = { 0, 0, 0, 0 };
+    private static int marbles;  // Packed with Marble.pack
     private static final TextPaint textPaint = new TextPaint();
     private StaticLayout staticLayout;
 
+    private final GameResources gr;
     private final Board board;
     private int stage;
     private float stageStartTime;
@@ -20,7 +21,8 @@ class Tutorial {
     private Wheel wheel1;
     private Wheel wheel2;
 
-    public Tutorial(Board b, int initialStage) {
+    public Tutorial(GameResources gr, Board b, int initialStage) {
+        this.gr = gr;
         board = b;
         stage = initialStage;
 
@@ -39,14 +41,14 @@ class Tutorial {
         switch(stage) {
             case 0:
                 // We are waiting for a marble to drop into the wheel
-                if( wheel1.marbles[3] >= 0) {
+                if( wheel1.hole(3) >= 0) {
                     stage = 1;
                     stageStartTime = time;
                 }
                 break;
             case 1:
                 // Introduce the spin tutorial
-                drawSpinWheelTutorial(board.gr, b, Math.min(dt, 1.0f), 0.0f);
+                drawSpinWheelTutorial(gr, b, Math.min(dt, 1.0f), 0.0f);
                 if( dt >= 1.0f) {
                     stage = 2;
                     stageStartTime = time;
@@ -54,21 +56,21 @@ class Tutorial {
                 break;
             case 2:
                 // Animate the spin tutorial
-                drawSpinWheelTutorial( board.gr, b, 1.0f, dt);
+                drawSpinWheelTutorial( gr, b, 1.0f, dt);
                 if( dt >= 7f) {
                     stageStartTime = time;
                 }
                 break;
             case 4:
                 // Wait for a marble in the right position
-                if( wheel1.marbles[1] >= 0) {
+                if( wheel1.hole(1) >= 0) {
                     stage = 5;
                     stageStartTime = time;
                 }
                 break;
             case 5:
                 // Introduce the eject tutorial
-                drawEjectTutorial( board.gr, b, Math.min(dt, 1.0f), 0.0f, false);
+                drawEjectTutorial( gr, b, Math.min(dt, 1.0f), 0.0f, false);
                 if( dt >= 1.0f) {
                     stage = 6;
                     stageStartTime = time;
@@ -76,10 +78,10 @@ class Tutorial {
                 break;
             case 6:
                 // Animate the eject tutorial
-                drawEjectTutorial(board.gr, b, 1.0f, dt, false);
+                drawEjectTutorial(gr, b, 1.0f, dt, false);
                 int count = 0;
                 for( int i=0; i < 4; ++i)
-                    if( wheel2.marbles[i] >= 0) count ++;
+                    if( wheel2.hole(i) >= 0) count ++;
                 if( count > 1) {
                     stage = 7;
                     stageStartTime = time;
@@ -90,7 +92,7 @@ class Tutorial {
             case 7:
                 // Send the eject tutorial away
                 if( dt < 1.0f) {
-                    drawEjectTutorial(board.gr, b, 1.0f - dt, dtSnapshot, true);
+                    drawEjectTutorial(gr, b, 1.0f - dt, dtSnapshot, true);
                 } else {
                     staticLayout = null;
                     stage = 8;
@@ -99,19 +101,19 @@ class Tutorial {
                 break;
             case 8:
                 // Draw the clear-wheels tutorial
-                drawClearWheelsTutorial(board.gr, b);
+                drawClearWheelsTutorial(gr, b);
                 break;
             case 9:
                 // Wait for the trigger to appear
-                if( board.trigger.marbles != null) {
+                if( board.trigger.armed) {
                     stage = 10;
                     stageStartTime = time;
                 }
                 break;
             case 10:
                 // Introduce the trigger tutorial and wait for the trigger to be completed
-                drawTriggerTutorial( board.gr, b, board, Math.min(dt, 1.0f));
-                if( board.trigger.marbles == null) {
+                drawTriggerTutorial( gr, b, board, Math.min(dt, 1.0f));
+                if( !board.trigger.armed) {
                     stage = 11;
                     stageStartTime = time;
                 }
@@ -119,7 +121,7 @@ class Tutorial {
             case 11:
                 // Send the trigger tutorial away
                 if( dt < 1.0f) {
-                    drawTriggerTutorial( board.gr, b, board, 1.0f - dt);
+                    drawTriggerTutorial( gr, b, board, 1.0f - dt);
                 } else {
                     stage = -1; // done
                 }
@@ -189,8 +191,8 @@ class Tutorial {
 
         int spinPos = 0;
         if( phase < 0.2f) {
-            spinPos = GameResources.wheel_steps - 1 -
-                    (int)Math.floor(phase * GameResources.wheel_steps / 0.2f);
+            spinPos = Wheel.wheel_steps - 1 -
+                    (int)Math.floor(phase * Wheel.wheel_steps / 0.2f);
         }
 
         // Draw a path
@@ -200,13 +202,13 @@ class Tutorial {
 
         // Draw the wheel
         for( int i=0; i < 4; ++i) {
-            marbles[(2-i)&3] = (time > i+1 ? 6 : -2);
+            marbles = Marble.pack(marbles, (2-i)&3, time > i+1 ? 6 : -2);
         }
-        Wheel.draw(gr, b, marbles, wheelX, wheelY, spinPos, false);
+        BoardRenderer.draw_wheel(b, marbles, wheelX, wheelY, spinPos, false);
 
         // Draw the marble
-        int marbleX = wheelX + gr.holecenters_x[0][3] - Marble.marble_size / 2;
-        int marbleY = wheelY + gr.holecenters_y[0][3] - Marble.marble_size / 2;
+        int marbleX = wheelX + Wheel.holecenter_x(0, 3) - Marble.marble_size / 2;
+        int marbleY = wheelY + Wheel.holecenter_y(0, 3) - Marble.marble_size / 2;
         if( phase > 0.1f && phase < 0.5f) {
             marbleX -= Math.round((0.5f - phase) * 400);
         }
@@ -272,7 +274,7 @@ class Tutorial {
         float phase = time - (float)Math.floor(time);
 
         for( int i=0; i < 4; ++i) {
-            marbles[i] = (i < 2 ? -2 : 3);
+            marbles = Marble.pack(marbles, i, i < 2 ? -2 : 3);
         }
 
         // Draw a path
@@ -282,11 +284,11 @@ class Tutorial {
                 x + w - wheelX - Tile.tile_size / 2, 30);
 
         // Draw the wheel
-        Wheel.draw(gr, b, marbles, wheelX, wheelY, 0, false);
+        BoardRenderer.draw_wheel(b, marbles, wheelX, wheelY, 0, false);
 
         // Draw the marble
-        int marbleX = wheelX + gr.holecenters_x[0][1] - Marble.marble_size / 2;
-        int marbleY = wheelY + gr.holecenters_y[0][1] - Marble.marble_size / 2;
+        int marbleX = wheelX + Wheel.holecenter_x(0, 1) - Marble.marble_size / 2;
+        int marbleY = wheelY + Wheel.holecenter_y(0, 1) - Marble.marble_size / 2;
         if( phase < 0.5f) {
             marbleX += Math.round(phase * 400);
         }
@@ -347,8 +349,8 @@ class Tutorial {
         b.c.restore();
 
         // Draw the incomplete wheel
-        for( int i=0; i < 4; ++i) marbles[i] = 3;
-        Wheel.draw(gr, b, marbles, wheel1X, wheelY, 0, false);
+        marbles = Marble.repeat(3);
+        BoardRenderer.draw_wheel(b, marbles, wheel1X, wheelY, 0, false);
 
         // Draw the arrow
         b.blit( R.drawable.misc, 393, 732, 29, 30,
@@ -356,8 +358,8 @@ class Tutorial {
                 wheelY + 30);
 
         // Draw the completed wheel
-        for( int i=0; i < 4; ++i) marbles[i] = -2;
-        Wheel.draw(gr, b, marbles, wheel2X, wheelY, 0, true);
+        marbles = Marble.repeat(-2);
+        BoardRenderer.draw_wheel(b, marbles, wheel2X, wheelY, 0, true);
     }
 
     private static void drawTriggerTutorial(GameResources gr, CanvasBlitter b,
@@ -377,11 +379,8 @@ class Tutorial {
         drawFrame(b, x, y, w, h);
 
         // Draw the wheel
-        if( board.trigger.marbles != null) {
-            for (int i = 0; i < 4; ++i)
-                marbles[i] = board.trigger.marbles.charAt(i) - '0';
-        }
-        Wheel.draw(gr, b, marbles, wheelX, wheelY, 0, false);
+        if( board.trigger.armed) marbles = board.trigger.marbles;
+        BoardRenderer.draw_wheel(b, marbles, wheelX, wheelY, 0, false);
 
         // Draw the check
         b.blit( R.drawable.misc, 392, 677, 29, 29,
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.lang.management.ManagementFactory;
+import com.sun.management.ThreadMXBean;
+
+// Plays every level headlessly and fails if Board.update() allocates
+// anything once the game has warmed up.  The scripted gestures are
+// made outside of the measured window, as a UI thread would make them,
+// but the commands they queue are applied within it, at the start of
+// the tick.  Ticks that end the level and reload the board are left
+// out.  The game's events are sent to an Events
+// ring and drained on each tick, which mustn't allocate either.  Nor
+// may saving the board to a Snapshot and restoring it, once the
+// Snapshot has grown.
+public class AllocationCheck
+{
+    private static final int warmup_ticks = 20000;
+    private static final int measured_ticks = 20000;
+    private static final int measured_snapshots = 2000;
+
+    private static ThreadMXBean mx;
+    private static long self;
+    private static long overhead;
+    private static long events_seen;
+    private static final Events.Listener counter = new Events.Listener() {
+        public void event(int type, int value, int tick) {
+            ++events_seen;
+        }
+    };
+
+    public static void main(String[] args) throws Exception {
+        mx = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+        self = Thread.currentThread().getId();
+
+        // Reading the counter may itself allocate, so measure that first
+        overhead = Long.MAX_VALUE;
+        for(int i=0; i < 1000; ++i) {
+            long before = mx.getThreadAllocatedBytes(self);
+            long after = mx.getThreadAllocatedBytes(self);
+            overhead = Math.min(overhead, after - before);
+        }
+
+        // Play every level once before measuring anything, so that the
+        // JIT has settled by the time the first level is measured
+        int levels = ScriptedGame.numLevels();
+        for(int level=0; level < levels; ++level) {
+            ScriptedGame game = new ScriptedGame(level);
+            for(int i=0; i < warmup_ticks; ++i) game.tick();
+        }
+
+        int failures = 0;
+        for(int level=0; level < levels; ++level) {
+            ScriptedGame game = new ScriptedGame(level);
+            Events events = new Events();
+            Events.Reader reader = events.reader();
+            game.send_events(events);
+            for(int i=0; i < warmup_ticks; ++i) {
+                game.tick();
+                reader.drain(counter);
+            }
+            events_seen = 0;
+
+            // The JVM occasionally allocates on this thread by itself,
+            // e.g. when deoptimizing a compiled method, so only count
+            // a level as allocating if a second window does too.  The
+            // script repeats every few hundred ticks, so any allocation
+            // made by the game itself would show up in both.
+            long bytes = measure(game, reader);
+            if(bytes > 0) bytes = measure(game, reader);
+
+            long snapshot_bytes = measure_snapshots(game.board);
+            if(snapshot_bytes > 0)
+                snapshot_bytes = measure_snapshots(game.board);
+
+            System.out.println("level " + level + ": " + bytes +
+                " bytes in " + measured_ticks + " ticks with " + events_seen +
+                " events, " + snapshot_bytes +
+                " bytes in " + measured_snapshots + " snapshots");
+            if(bytes > 0 || snapshot_bytes > 0) ++failures;
+        }
+
+        if(failures > 0) {
+            System.out.println(failures + " level(s) allocated during play");
+            System.exit(1);
+        }
+    }
+
+    private static long measure(ScriptedGame game, Events.Reader reader) {
+        long bytes = 0;
+        int ticks = 0;
+        while(ticks < measured_ticks) {
+            game.gesture();
+            long before = mx.getThreadAllocatedBytes(self);
+            int status = game.step();
+            reader.drain(counter);
+            long after = mx.getThreadAllocatedBytes(self);
+            if(status != Board.INCOMPLETE) continue;
+            bytes += after - before - overhead;
+            ++ticks;
+        }
+        return bytes;
+    }
+
+    private static long measure_snapshots(Board board) {
+        Snapshot s = new Snapshot();
+        board.save(s);
+        long before = mx.getThreadAllocatedBytes(self);
+        for(int i=0; i < measured_snapshots; ++i) {
+            board.save(s);
+            board.restore(s);
+        }
+        long after = mx.getThreadAllocatedBytes(self);
+        return after - before - overhead;
+    }
+}
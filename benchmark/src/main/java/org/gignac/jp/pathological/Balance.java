@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.io.ByteArrayInputStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Plays each level many times over with a rough stand-in for a player,
+// headless and on every core, and reports how the games went: how
+// often the level was completed, the spread of the empty hole and time
+// remaining percentages, why the failed games failed, and the spread of
+// scores.  Each level's line is printed as soon as it is done.
+// Options:
+//   -n <games>    the number of games per level (default 1000)
+//   levels...     the levels to play (default all)
+public class Balance
+{
+    static final int think_ticks = 15;   // How often the player acts
+    private static final int chunk = 25;         // Games per task
+
+    // The outcome of one game
+    private static final class Game {
+        int status;
+        int score;              // Including the end of level bonus
+        int empty_holes;        // Board.emptyHolePercentage()
+        int time_remaining;     // Board.timeRemainingPercentage()
+        int wheels_left;
+        boolean at_marble_limit;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = 1000;
+        ArrayList<Integer> levels = new ArrayList<>();
+        for(int i=0; i < args.length; ++i) {
+            if(args[i].equals("-n")) games = Integer.parseInt(args[++i]);
+            else levels.add(Integer.parseInt(args[i]));
+        }
+        if(levels.isEmpty())
+            for(int i=0; i < ScriptedGame.numLevels(); ++i) levels.add(i);
+
+        // Queue up every level at once, so that the pool stays busy,
+        // but print them in order
+        ForkJoinPool pool = new ForkJoinPool();
+        ArrayList<Future<Game[]>> results = new ArrayList<>();
+        for(int level : levels)
+            results.add(pool.submit(new Games(level, 0, games)));
+        for(int i=0; i < levels.size(); ++i)
+            System.out.println(report(levels.get(i), results.get(i).get()));
+        pool.shutdown();
+    }
+
+    // Plays games first .. first+count-1 of a level, splitting the work
+    // into smaller tasks for the other threads to steal
+    @SuppressWarnings("serial")
+    private static final class Games extends RecursiveTask<Game[]> {
+        final int level, first, count;
+
+        Games(int level, int first, int count) {
+            this.level = level;
+            this.first = first;
+            this.count = count;
+        }
+
+        @Override
+        protected Game[] compute() {
+            if(count > chunk) {
+                int half = count / 2;
+                Games a = new Games(level, first, half);
+                Games b = new Games(level, first + half, count - half);
+                a.fork();
+                Game[] gb = b.compute();
+                Game[] ga = a.join();
+                Game[] all = Arrays.copyOf(ga, count);
+                System.arraycopy(gb, 0, all, half, gb.length);
+                return all;
+            }
+            Game[] games = new Game[count];
+            for(int i=0; i < count; ++i) games[i] = play(level, first + i);
+            return games;
+        }
+    }
+
+    private static Game play(int level, int n) {
+        long seed = level * 1000003L + n;
+        Board board;
+        try {
+            board = new Board(Sounds.silent, Clock.system, seed,
+                new ByteArrayInputStream(ScriptedGame.boards()), level);
+        } catch(java.io.IOException e) {
+            throw new RuntimeException(e);
+        }
+        Rng player = new Rng(~seed);
+        board.launch_marble();
+        int status;
+        while((status = board.update()) == Board.INCOMPLETE)
+            if(board.ticks % think_ticks == 0) act(board, player);
+
+        Game g = new Game();
+        g.status = status;
+        g.empty_holes = board.emptyHolePercentage();
+        g.time_remaining = board.timeRemainingPercentage();
+        g.score = board.score();
+        if(status == Board.COMPLETE)
+            g.score += g.empty_holes * 2 + g.time_remaining * 5;
+        g.wheels_left = board.incomplete_wheels;
+        g.at_marble_limit = board.marbles.size() >= board.live_marbles_limit;
+        return g;
+    }
+
+    // The stand-in player looks over the wheels that are at rest.  Half
+    // of the time it does nothing.  Otherwise it picks at random between
+    // flicking out a marble that doesn't match the most common color in
+    // its wheel, and turning a wheel that holds any marbles.
+    static void act(Board board, Rng rng) {
+        int[] choices = new int[board.wheels.length * 5];
+        int n = 0;
+        for(Wheel w : board.wheels) {
+            if(w.spinpos != 0) continue;
+            int[] count = new int[9];
+            boolean entering = false;
+            int held = 0;
+            for(int i=0; i < 4; ++i) {
+                int c = w.hole(i);
+                if(c == -1) entering = true;
+                if(c >= 0) {
+                    ++count[c];
+                    ++held;
+                }
+            }
+            if(entering || held == 0) continue;
+            int common = 0;
+            for(int c=1; c < 8; ++c) if(count[c] > count[common]) common = c;
+            int tile = w.tile_y * Board.horiz_tiles + w.tile_x;
+            for(int i=0; i < 4; ++i) {
+                int c = w.hole(i);
+                if(c >= 0 && c != 8 && c != common &&
+                   (w.paths & (1 << i)) != 0)
+                    choices[n++] = tile * 5 + i;
+            }
+            choices[n++] = tile * 5 + Board.CLICK;
+        }
+        if(n == 0 || rng.nextInt(2) == 0) return;
+        int choice = choices[rng.nextInt(n)];
+        int tile = choice / 5;
+        board.input(tile % Board.horiz_tiles, tile / Board.horiz_tiles,
+            choice % 5);
+    }
+
+    private static String report(int level, Game[] games) {
+        int n = games.length;
+        int completed = 0, launch = 0, launch_limit = 0, board_timeouts = 0;
+        int[] wheels_left = new int[n];
+        int nleft = 0;
+        int[] empty = new int[n];
+        int[] time = new int[n];
+        int[] score = new int[n];
+        int ncompleted = 0;
+        for(int i=0; i < n; ++i) {
+            Game g = games[i];
+            score[i] = g.score;
+            if(g.status == Board.COMPLETE) {
+                ++completed;
+                empty[ncompleted] = g.empty_holes;
+                time[ncompleted] = g.time_remaining;
+                ++ncompleted;
+            } else {
+                wheels_left[nleft++] = g.wheels_left;
+                if(g.status == Board.LAUNCH_TIMEOUT) {
+                    ++launch;
+                    if(g.at_marble_limit) ++launch_limit;
+                } else {
+                    ++board_timeouts;
+                }
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("level ").append(level).append(": ")
+          .append(percent(completed, n)).append(" completed");
+        if(ncompleted > 0) {
+            sb.append(", empty holes ").append(spread(empty, ncompleted))
+              .append(", time left ").append(spread(time, ncompleted));
+        }
+        sb.append(", score ").append(spread(score, n));
+        if(launch > 0) {
+            sb.append("; launch timeouts ").append(percent(launch, n))
+              .append(" (").append(percent(launch_limit, launch))
+              .append(" at the marble limit, the rest with no way in)");
+        }
+        if(board_timeouts > 0)
+            sb.append("; board timeouts ").append(percent(board_timeouts, n));
+        if(nleft > 0)
+            sb.append("; wheels left on failure ").append(spread(wheels_left, nleft));
+        return sb.toString();
+    }
+
+    private static String percent(int k, int n) {
+        return (k * 100 + n/2) / n + "%";
+    }
+
+    // The 10th, 50th and 90th percentiles
+    private static String spread(int[] values, int n) {
+        int[] v = Arrays.copyOf(values, n);
+        Arrays.sort(v);
+        return v[n / 10] + "/" + v[n / 2] + "/" + v[n * 9 / 10];
+    }
+}
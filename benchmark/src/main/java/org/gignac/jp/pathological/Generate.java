@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Makes up new levels with LevelGenerator on every core, and keeps the
+// ones that Balance's stand-in player can complete.  Each candidate is
+// played a few times, headless, with the timers it would ship with.
+// It is kept if any game completes it, and its difficulty is the mean
+// over the games of the share of the board timer used, counting a
+// failed game as all of it.  Kept levels are appended to the output
+// as soon as they are found, in the all_boards.txt grammar, each with
+// a comment giving its difficulty.  Options:
+//   -n <levels>   the number of levels to keep (default 100)
+//   -g <games>    the games to play per candidate (default 8)
+//   -t <threads>  the number of threads to generate with
+//   -s <seed>     the seed for the whole run
+//   -o <file>     where to write the levels (default generated_boards.txt)
+public class Generate
+{
+    private static int games = 8;
+    private static volatile boolean done;
+    private static final AtomicInteger tried = new AtomicInteger();
+
+    // A level that passed, on its way to the writer
+    private static final class Level {
+        final String text;
+        final float difficulty;
+        final int completed;
+
+        Level(String text, float difficulty, int completed) {
+            this.text = text;
+            this.difficulty = difficulty;
+            this.completed = completed;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int levels = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        String out = "generated_boards.txt";
+        for(int i=0; i < args.length; ++i) {
+            if(args[i].equals("-n")) levels = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-g")) games = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-t")) threads = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-s")) seed = Long.parseLong(args[++i]);
+            else if(args[i].equals("-o")) out = args[++i];
+            else throw new IllegalArgumentException(args[i]);
+        }
+
+        BlockingQueue<Level> kept = new LinkedBlockingQueue<>();
+        Rng rng = new Rng(seed);
+        Thread[] workers = new Thread[threads];
+        for(int i=0; i < threads; ++i) {
+            workers[i] = new Worker(rng.split(), kept);
+            workers[i].start();
+        }
+
+        long start = System.nanoTime();
+        Writer f = new BufferedWriter(new FileWriter(out));
+        try {
+            for(int i=0; i < levels; ++i) {
+                Level level = kept.take();
+                f.write(String.format("# difficulty %.2f, %d of %d games " +
+                    "completed\n", level.difficulty, level.completed, games));
+                f.write("name=Generated " + (i+1) + "\n");
+                f.write("pos=" + i/3 + "," + i%3 + "\n");
+                f.write(level.text);
+                f.write("\n");
+                f.flush();
+            }
+        } finally {
+            done = true;
+            f.close();
+        }
+        for(Thread w : workers) w.join();
+
+        double minutes = (System.nanoTime() - start) / 60e9;
+        System.out.println(String.format("kept %d of %d candidates in " +
+            "%.1f minutes (%.0f candidates per minute), seed %d",
+            levels, tried.get(), minutes, tried.get() / minutes, seed));
+    }
+
+    private static final class Worker extends Thread {
+        final Rng rng;
+        final LevelGenerator generator;
+        final BlockingQueue<Level> kept;
+
+        Worker(Rng rng, BlockingQueue<Level> kept) {
+            this.rng = rng;
+            this.generator = new LevelGenerator(rng.split());
+            this.kept = kept;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while(!done) {
+                tried.incrementAndGet();
+                String text = generator.generate();
+                byte[] bytes = ("name=\n" + text).getBytes();
+                int completed = 0;
+                float used = 0;
+                for(int g=0; g < games; ++g) {
+                    Board board = new Board(Sounds.silent, Clock.system,
+                        rng.nextLong(), new ByteArrayInputStream(bytes), 0);
+                    if(play(board, rng) == Board.COMPLETE) {
+                        ++completed;
+                        used += 1f - (float)board.board_timeout /
+                            board.board_timeout_start;
+                    } else {
+                        used += 1f;
+                    }
+                }
+                if(completed > 0)
+                    kept.add(new Level(text, used / games, completed));
+            }
+        }
+    }
+
+    private static int play(Board board, Rng player) {
+        board.launch_marble();
+        int status;
+        while((status = board.update()) == Board.INCOMPLETE)
+            if(board.ticks % Balance.think_ticks == 0)
+                Balance.act(board, player);
+        return status;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+// Makes taps and flicks on the wheels of every level through the
+// InputQueue, sampled as a touch screen would report them, and checks
+// that each touch makes exactly one command of the right kind:
+//   tap           lifts where it went down: a CLICK
+//   flick         moves steadily out and lifts: a flick that way
+//   out and back  moves out far enough to commit a flick early, then
+//                 comes back to where it started and lifts: the flick
+//                 and nothing else
+public class GestureCheck
+{
+    private static final int sample_ms = 8;
+    private static final int step = 6;          // Pixels per sample
+
+    public static void main(String[] args) throws Exception {
+        int levels = ScriptedGame.numLevels();
+        int failures = 0;
+        for(int level=0; level < levels; ++level) {
+            Board board = ScriptedGame.load(level);
+            InputQueue input = new InputQueue();
+            int gestures = 0;
+            int wrong = 0;
+            for(Tile wheel : board.wheels) {
+                int x = wheel.tile_x * Tile.tile_size + Tile.tile_size/2;
+                int y = Marble.marble_size + wheel.tile_y * Tile.tile_size +
+                    Tile.tile_size/2;
+                if(!check(board, input, x, y, 0, 0, 0, Board.CLICK)) ++wrong;
+                for(int dir=0; dir < 4; ++dir) {
+                    if(!check(board, input, x, y, dir, 10, 0, dir)) ++wrong;
+                    if(!check(board, input, x, y, dir, 8, 8, dir)) ++wrong;
+                }
+                gestures += 9;
+            }
+
+            System.out.println("level " + level + ": " + gestures +
+                " gestures, " + wrong + " wrong");
+            if(wrong > 0) ++failures;
+        }
+
+        if(failures > 0) {
+            System.out.println(failures + " level(s) misread a gesture");
+            System.exit(1);
+        }
+    }
+
+    // Moves out from (x,y) in the given direction for the given number
+    // of samples, then back for the given number, and lifts.  Returns
+    // whether that made just the one command, with the given action.
+    private static boolean check(Board board, InputQueue input, int x, int y,
+                                 int dir, int out, int back, int action) {
+        Replay replay = new Replay(board.level, board.seed);
+        board.record(replay);
+        int dx = Marble.dx[dir] * step, dy = Marble.dy[dir] * step;
+        long time = 0;
+        int px = x, py = y;
+        input.down(0, px, py, time);
+        for(int i=0; i < out; ++i) {
+            px += dx;
+            py += dy;
+            input.move(board, 0, px, py, time += sample_ms);
+        }
+        for(int i=0; i < back && (px != x || py != y); ++i) {
+            px -= dx;
+            py -= dy;
+            input.move(board, 0, px, py, time += sample_ms);
+        }
+        input.up(board, 0, px, py, time += sample_ms);
+        input.apply(board);
+        return replay.inputs() == 1 && replay.input_action(0) == action;
+    }
+}
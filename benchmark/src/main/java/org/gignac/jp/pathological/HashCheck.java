@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+// Plays every level and checks on each tick that the hash the board
+// keeps up to date as it goes matches one computed from scratch, and
+// that restoring a snapshot restores the hash.  Also reports how often
+// the scripted play comes back to a position that it has already seen.
+public class HashCheck
+{
+    private static final int played_ticks = 20000;
+
+    public static void main(String[] args) throws Exception {
+        int levels = ScriptedGame.numLevels();
+        TranspositionTable seen = new TranspositionTable(16);
+        Snapshot s = new Snapshot();
+        int failures = 0;
+        for(int level=0; level < levels; ++level) {
+            ScriptedGame game = new ScriptedGame(level);
+            seen.clear();
+            int mismatches = 0;
+            int repeats = 0;
+            for(int i=0; i < played_ticks; ++i) {
+                game.tick();
+                Board board = game.board;
+                long hash = board.hash();
+                if(seen.visit(hash)) ++repeats;
+
+                long kept = board.zobrist;
+                if(board.rehash() != kept) ++mismatches;
+
+                // Restoring recomputes the hash; it should come out
+                // the same
+                if(i % 100 == 0) {
+                    board.save(s);
+                    board.zobrist = 0;
+                    board.restore(s);
+                    if(board.hash() != hash) ++mismatches;
+                }
+            }
+
+            System.out.println("level " + level + ": " + repeats +
+                " repeated positions, " + mismatches + " mismatches");
+            if(mismatches > 0) ++failures;
+        }
+
+        if(failures > 0) {
+            System.out.println(failures + " level(s) kept the wrong hash");
+            System.exit(1);
+        }
+    }
+}
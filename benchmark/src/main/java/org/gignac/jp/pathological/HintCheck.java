@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.io.ByteArrayInputStream;
+import java.lang.management.*;
+import java.util.*;
+
+// Plays each level in real time, at the game's frame rate, with Hints
+// following along, as the game does when the hint button is pressed.
+// Reports how often a hint was ready, how late the game's ticks ran,
+// and how much of the CPU the search took.  Fails if the search took
+// more than its budget of 1/Hints.share of every frame, give or
+// take the rollout in progress at the end of each burst.
+// Options:
+//   -s <seconds>  how long to play each level (default 3)
+//   levels...     the levels to play (default all)
+public class HintCheck
+{
+    private static final long frame_ns = 1000000000L / Board.frames_per_sec;
+    private static final double max_share = 1.25 / Hints.share;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = 3;
+        ArrayList<Integer> levels = new ArrayList<>();
+        for(int i=0; i < args.length; ++i) {
+            if(args[i].equals("-s")) seconds = Integer.parseInt(args[++i]);
+            else levels.add(Integer.parseInt(args[i]));
+        }
+        if(levels.isEmpty())
+            for(int i=0; i < ScriptedGame.numLevels(); ++i) levels.add(i);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int failures = 0;
+        for(int level : levels) {
+            ScriptedGame game = new ScriptedGame(level);
+            Hints hints = new Hints(new Board(Sounds.silent, Clock.system,
+                new ByteArrayInputStream(ScriptedGame.boards()), level), null);
+            hints.start();
+            long start = System.nanoTime();
+
+            int ticks = seconds * Board.frames_per_sec;
+            int answered = 0, moves = 0, positions = 0, choices = 0;
+            long[] late = new long[ticks];
+            long next = start;
+            for(int i=0; i < ticks; ++i) {
+                next += frame_ns;
+                long wait = next - System.nanoTime();
+                if(wait > 0) Thread.sleep(wait / 1000000, (int)(wait % 1000000));
+                game.tick();
+                hints.follow(game.board);
+                late[i] = System.nanoTime() - next;
+
+                int best = hints.best();
+                if(best != Hints.NONE) ++answered;
+                if(best >= 0) ++moves;
+                int c = Solver.choices(game.board);
+                if(c != choices) ++positions;
+                choices = c;
+            }
+            double share = (double)cpu_time(threads, "hints") /
+                (System.nanoTime() - start);
+            hints.stop();
+
+            Arrays.sort(late);
+            System.out.println(String.format("level %d: %d positions, " +
+                "answer ready %d%% of ticks (a move %d%%), ticks late " +
+                "%d us at the 99th percentile, search took %.1f%% of a core",
+                level, positions, answered * 100 / ticks, moves * 100 / ticks,
+                late[ticks * 99 / 100] / 1000, share * 100));
+            if(share > max_share) ++failures;
+        }
+
+        if(failures > 0) {
+            System.out.println(failures + " level(s) went over the budget");
+            System.exit(1);
+        }
+    }
+
+    private static long cpu_time(ThreadMXBean threads, String name) {
+        for(ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds()))
+            if(info != null && info.getThreadName().equals(name))
+                return threads.getThreadCpuTime(info.getThreadId());
+        return 0;
+    }
+}
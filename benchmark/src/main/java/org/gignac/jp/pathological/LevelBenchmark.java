@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// The cost of Board.update() on each of the shipped levels.  Run
+// with "-prof gc" to also see the bytes allocated per tick.  The ticks
+// are measured a batch at a time, so that between batches, outside the
+// measurement, the level can be loaded again for when it ends.
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelBenchmark
+{
+    @Param({
+        "0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12",
+        "13", "14", "15", "16", "17", "18", "19", "20", "21", "22", "23", "24", "25",
+        "26", "27", "28", "29", "30", "31", "32", "33", "34", "35", "36", "37", "38",
+        "39", "40", "41", "42", "43", "44", "45", "46", "47", "48", "49", "50", "51"
+    })
+    public int level;
+
+    private static final int batch = 100;   // Ticks per invocation
+
+    private ScriptedGame game;
+
+    @Setup
+    public void setup() {
+        game = new ScriptedGame(level);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        game.prepare();
+    }
+
+    private int ticks() {
+        int status = 0;
+        for(int i=0; i < batch; ++i) status |= game.tick();
+        return status;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(batch)
+    public int ticksPerSecond() {
+        return ticks();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(batch)
+    public int nsPerTick() {
+        return ticks();
+    }
+}
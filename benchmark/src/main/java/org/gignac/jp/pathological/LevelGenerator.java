@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.util.Arrays;
+
+// Makes up random boards in the all_boards.txt grammar.  The board is
+// laid out as the file shows it: rows of columns, with the launcher
+// along the top, and paths given as N=1, E=2, S=4, W=8.
+//
+// Wheels are placed first, and then each is joined by a track to the
+// tracks laid so far, starting from an opening under the launcher, so
+// that every wheel can be reached.  A few more tracks join spare sides
+// of wheels to make loops, and some wheels are joined by a teleporter
+// pair instead.  Then some of the track is turned into painters,
+// filters, directors, switches, buffers and replicators, dead ends off
+// spare sides of wheels get shredders, and there may be a trigger or a
+// stoplight.  Whether the result is any good is left to Generate.
+final class LevelGenerator
+{
+    static final int rows = Board.horiz_tiles;
+    static final int cols = Board.vert_tiles;
+    private static final int N = 1, E = 2, S = 4, W = 8;
+    private static final int[] drow = { -1, 0, 1, 0 };
+    private static final int[] dcol = { 0, 1, 0, -1 };
+    private static final String arrows = "^>v<";
+    private static final int seconds_per_wheel = 60;    // Twice the usual
+
+    private final Rng rng;
+    private final char[][] type = new char[rows][cols];
+    private final int[][] paths = new int[rows][cols];
+    private final char[][] control = new char[rows][cols];
+    private final boolean[][] joined = new boolean[rows][cols];
+    private final int[] queue = new int[rows * cols];
+    private final int[] from = new int[rows * cols];
+    private int wheels;
+    private String colors;
+    private char teleporter;
+
+    public LevelGenerator(Rng rng) {
+        this.rng = rng;
+    }
+
+    // A new board: everything but its name= and other menu settings
+    public String generate() {
+        for( int r=0; r < rows; ++r) {
+            for( int c=0; c < cols; ++c) {
+                type[r][c] = ' ';
+                paths[r][c] = 0;
+                control[r][c] = ' ';
+                joined[r][c] = false;
+            }
+        }
+        teleporter = 'a';
+        pick_colors();
+
+        // The opening under the launcher
+        int entry = rng.nextInt(cols);
+        paths[0][entry] = N;
+        joined[0][entry] = true;
+
+        wheels = 2 + rng.nextInt(5);
+        int[] wheel = new int[wheels];
+        for( int i=0; i < wheels; ++i) {
+            int cell;
+            do cell = rng.nextInt(rows * cols);
+            while( type[cell / cols][cell % cols] == 'O' || cell == entry);
+            type[cell / cols][cell % cols] = 'O';
+            wheel[i] = cell;
+        }
+        for( int i=0; i < wheels; ++i) {
+            if( rng.nextInt(4) != 0 || !teleport(wheel[i])) join(wheel[i]);
+        }
+        for( int i=rng.nextInt(3); i > 0; --i) join(wheel[rng.nextInt(wheels)]);
+
+        decorate(wheel);
+        return render();
+    }
+
+    private void pick_colors() {
+        // Usually the default colors, sometimes fewer or more
+        String all = "01234567";
+        switch( rng.nextInt(4)) {
+        case 0: {
+            StringBuilder sb = new StringBuilder();
+            int n = 3 + rng.nextInt(3);
+            while( sb.length() < n) {
+                char c = all.charAt(rng.nextInt(all.length()));
+                if( sb.indexOf(String.valueOf(c)) < 0) sb.append(c);
+            }
+            colors = sb.append('8').toString();
+            break;
+        }
+        default:
+            colors = "23468";
+        }
+    }
+
+    private char color() {
+        return colors.charAt(rng.nextInt(colors.length() - 1));
+    }
+
+    private boolean on_board(int r, int c) {
+        return r >= 0 && r < rows && c >= 0 && c < cols;
+    }
+
+    // Lays a track from the cell to the nearest joined cell, by a
+    // breadth-first search that tries the directions in random order
+    private void join(int start) {
+        int head = 0, tail = 0;
+        Arrays.fill(from, -1);
+        queue[tail++] = start;
+        from[start] = start;
+        int[] order = { 0, 1, 2, 3 };
+        while( head < tail) {
+            int cell = queue[head++];
+            int r = cell / cols, c = cell % cols;
+            if( cell != start && joined[r][c] && type[r][c] != '=') {
+                lay(start, cell);
+                return;
+            }
+            if( cell != start && type[r][c] != ' ') continue;
+            for( int i=3; i > 0; --i) {
+                int j = rng.nextInt(i + 1), t = order[i];
+                order[i] = order[j];
+                order[j] = t;
+            }
+            for( int d : order) {
+                int nr = r + drow[d], nc = c + dcol[d];
+                if( !on_board(nr, nc)) continue;
+                int next = nr * cols + nc;
+                if( from[next] >= 0) continue;
+                // Only go through wheels that are already joined
+                if( type[nr][nc] != ' ' && !joined[nr][nc]) continue;
+                from[next] = cell;
+                queue[tail++] = next;
+            }
+        }
+    }
+
+    // Follows the search back from the end, opening paths between the
+    // cells along the way
+    private void lay(int start, int end) {
+        int cell = end;
+        while( cell != start) {
+            int prev = from[cell];
+            connect(prev, cell);
+            joined[prev / cols][prev % cols] = true;
+            cell = prev;
+        }
+    }
+
+    private void connect(int a, int b) {
+        int ar = a / cols, ac = a % cols, br = b / cols, bc = b % cols;
+        for( int d=0; d < 4; ++d) {
+            if( ar + drow[d] == br && ac + dcol[d] == bc) {
+                paths[ar][ac] |= 1 << d;
+                paths[br][bc] |= 1 << (d ^ 2);
+            }
+        }
+    }
+
+    // Joins a wheel through a pair of teleporters: one beside the wheel
+    // and one that leads on into a joined cell in the same direction
+    private boolean teleport(int wheel) {
+        int r = wheel / cols, c = wheel % cols;
+        int d = rng.nextInt(4);
+        int ar = r + drow[d], ac = c + dcol[d];
+        if( !on_board(ar, ac) || type[ar][ac] != ' ' || paths[ar][ac] != 0)
+            return false;
+        for( int tries=0; tries < 20; ++tries) {
+            int br = rng.nextInt(rows), bc = rng.nextInt(cols);
+            int jr = br + drow[d], jc = bc + dcol[d];
+            if( !on_board(jr, jc) || !joined[jr][jc] || type[jr][jc] == '=' ||
+                type[br][bc] != ' ' || paths[br][bc] != 0 ||
+                (br == ar && bc == ac)) continue;
+            type[ar][ac] = '=';
+            type[br][bc] = '=';
+            control[ar][ac] = teleporter;
+            control[br][bc] = teleporter++;
+            paths[r][c] |= 1 << d;
+            paths[ar][ac] = 1 << (d ^ 2);
+            paths[br][bc] = 1 << d;
+            paths[jr][jc] |= 1 << (d ^ 2);
+            joined[r][c] = joined[ar][ac] = joined[br][bc] = true;
+            return true;
+        }
+        return false;
+    }
+
+    private void decorate(int[] wheel) {
+        for( int r=0; r < rows; ++r) {
+            for( int c=0; c < cols; ++c) {
+                if( type[r][c] != ' ' || paths[r][c] == 0 ||
+                    (r == 0 && (paths[r][c] & N) != 0)) continue;
+                int p = paths[r][c];
+                boolean straight = p == (N|S) || p == (E|W);
+                int k = rng.nextInt(40);
+                if( straight && k < 2) {
+                    type[r][c] = '&';
+                    control[r][c] = color();
+                } else if( straight && k < 4) {
+                    type[r][c] = '#';
+                    control[r][c] = color();
+                } else if( straight && k < 5) {
+                    type[r][c] = '*';
+                    control[r][c] = '2';
+                } else if( Integer.bitCount(p) >= 3 && k < 4) {
+                    int a = pick(p), b;
+                    do b = pick(p); while( b == a);
+                    type[r][c] = arrows.charAt(a);
+                    control[r][c] = arrows.charAt(b);
+                } else if( Integer.bitCount(p) >= 2 && k < 6) {
+                    type[r][c] = arrows.charAt(pick(p));
+                } else if( k < 7) {
+                    type[r][c] = '@';
+                }
+            }
+        }
+
+        // Shredders off some of the wheels' spare sides
+        for( int cell : wheel) {
+            if( rng.nextInt(3) != 0) continue;
+            int r = cell / cols, c = cell % cols, d = rng.nextInt(4);
+            int nr = r + drow[d], nc = c + dcol[d];
+            if( !on_board(nr, nc) || type[nr][nc] != ' ' ||
+                paths[nr][nc] != 0 || (paths[r][c] & (1 << d)) != 0)
+                continue;
+            type[nr][nc] = 'X';
+            paths[r][c] |= 1 << d;
+            paths[nr][nc] = 1 << (d ^ 2);
+        }
+
+        if( rng.nextInt(4) == 0) place('%');
+        if( rng.nextInt(4) == 0) place('!');
+    }
+
+    // One of the directions in the given paths, at random
+    private int pick(int p) {
+        int d;
+        do d = rng.nextInt(4); while((p & (1 << d)) == 0);
+        return d;
+    }
+
+    private void place(char t) {
+        for( int tries=0; tries < 20; ++tries) {
+            int r = rng.nextInt(rows), c = rng.nextInt(cols);
+            if( type[r][c] != ' ' || paths[r][c] != 0) continue;
+            type[r][c] = t;
+            return;
+        }
+    }
+
+    private String render() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("author=Level generator\n");
+        sb.append("boardtimer=").append(seconds_per_wheel * wheels).append('\n');
+        if( !colors.equals("23468"))
+            sb.append("colors=").append(colors.replaceAll("(.)(?!$)", "$1,"))
+              .append('\n');
+        sb.append("+---+---+---+---+---+---+---+---+\n");
+        for( int r=0; r < rows; ++r) {
+            sb.append('|');
+            for( int c=0; c < cols; ++c) {
+                sb.append(type[r][c])
+                  .append(paths[r][c] == 0 ? ' ' :
+                          Character.forDigit(paths[r][c], 16))
+                  .append(control[r][c]).append('|');
+            }
+            sb.append('\n');
+        }
+        sb.append("+---+---+---+---+---+---+---+---+\n");
+        return sb.toString();
+    }
+}
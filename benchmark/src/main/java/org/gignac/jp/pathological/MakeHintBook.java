@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.io.*;
+import java.util.*;
+
+// Builds the hint book that ships with the app.  Every level is solved
+// with the Solver from a few different seeds, and each solution is
+// played back to find the positions it passed through: the start, and
+// every tick on which the choices open to the player changed or an
+// input was made.  The book records what the solution did at each of
+// those, keyed by Board.signature().  Where solutions disagree about a
+// position, the higher scoring one wins.  Options:
+//   -n <nodes>    the most positions to expand per solve
+//   -k <seeds>    the number of seeds to solve each level from
+//   -o <file>     where to write the book (default hints.bin)
+public class MakeHintBook
+{
+    public static void main(String[] args) throws Exception {
+        int nodes = 0, seeds = 3;
+        String out = "hints.bin";
+        for(int i=0; i < args.length; ++i) {
+            if(args[i].equals("-n")) nodes = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-k")) seeds = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-o")) out = args[++i];
+            else throw new IllegalArgumentException(args[i]);
+        }
+
+        int levels = ScriptedGame.numLevels();
+        long[][] signatures = new long[levels][];
+        int[][] inputs = new int[levels][];
+        int covered = 0;
+        for(int level=0; level < levels; ++level) {
+            ArrayList<Solver.Solution> solutions = new ArrayList<>();
+            ArrayList<Solver> solvers = new ArrayList<>();
+            for(int k=0; k < seeds; ++k) {
+                Solver solver = new Solver(ScriptedGame.boards(), level,
+                    level * 1000003L + k);
+                if(nodes > 0) solver.max_nodes = nodes;
+                Solver.Solution s = solver.solve();
+                if(s == null) continue;
+                solutions.add(s);
+                solvers.add(solver);
+            }
+
+            // Best first, so that its entries take precedence
+            LinkedHashMap<Long, Integer> book = new LinkedHashMap<>();
+            while(!solutions.isEmpty()) {
+                int best = 0;
+                for(int i=1; i < solutions.size(); ++i)
+                    if(solutions.get(i).score > solutions.get(best).score)
+                        best = i;
+                record(solvers.remove(best), solutions.remove(best), book);
+            }
+
+            signatures[level] = new long[book.size()];
+            inputs[level] = new int[book.size()];
+            int i = 0;
+            for(Map.Entry<Long, Integer> e : book.entrySet()) {
+                signatures[level][i] = e.getKey();
+                inputs[level][i++] = e.getValue();
+            }
+            if(i > 0) ++covered;
+            System.out.println("level " + level + ": " + book.size() +
+                " positions");
+        }
+
+        byte[] packed = HintBook.pack(signatures, inputs);
+        OutputStream f = new FileOutputStream(out);
+        try {
+            f.write(packed);
+        } finally {
+            f.close();
+        }
+        System.out.println(covered + " of " + levels + " levels covered, " +
+            packed.length + " bytes written to " + out);
+    }
+
+    // Plays a solution back, noting what it did at each position
+    private static void record(Solver solver, Solver.Solution s,
+                               Map<Long, Integer> book) {
+        Board board = solver.load();
+        int next = 0;
+        int choices = 0;
+        int status = Board.INCOMPLETE;
+        while(status == Board.INCOMPLETE) {
+            int c = Solver.choices(board);
+            boolean input = next < s.inputs.length &&
+                s.input_ticks[next] == board.ticks;
+            if(board.ticks == 0 || c != choices || input) {
+                Long key = board.signature();
+                if(!book.containsKey(key))
+                    book.put(key, input ? s.inputs[next] : Hints.WAIT);
+            }
+            choices = c;
+            for(; next < s.inputs.length && s.input_ticks[next] == board.ticks;
+                ++next) {
+                int tile = s.inputs[next] / 5;
+                board.input(tile % Board.horiz_tiles, tile / Board.horiz_tiles,
+                    s.inputs[next] % 5);
+            }
+            status = board.update();
+        }
+        if(status != Board.COMPLETE)
+            throw new IllegalStateException("Level " + solver.level +
+                " solution did not play back");
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.util.*;
+
+// Plays every level at each of the usual display refresh rates, with
+// the same gestures at the same moments of the game, and checks that
+// the boards are the same at each of those moments as they are at the
+// default rate.  The gestures come every tenth of a second, which is a
+// whole number of ticks at each rate.  As in ScriptedGame, the timers
+// are disabled so that the game can run for a while.
+public class RateCheck
+{
+    private static final int[] rates = { 60, 90, 100, 120 };
+    private static final int per_sec = 10;     // Gestures
+    private static final int played_secs = 120;
+
+    public static void main(String[] args) throws Exception {
+        int levels = ScriptedGame.numLevels();
+        int failures = 0;
+        for(int level=0; level < levels; ++level) {
+            ArrayList<int[]> expected = play(level, Board.frames_per_sec);
+            StringBuilder line = new StringBuilder("level " + level + ":");
+            boolean failed = false;
+            for(int rate : rates) {
+                ArrayList<int[]> got = play(level, rate);
+                int mismatches = Math.abs(got.size() - expected.size());
+                for(int i=0; i < Math.min(got.size(), expected.size()); ++i)
+                    if(!Arrays.equals(got.get(i), expected.get(i)))
+                        ++mismatches;
+                line.append(" " + rate + " Hz " + mismatches + " mismatches,");
+                if(mismatches > 0) failed = true;
+            }
+            line.setLength(line.length() - 1);
+            System.out.println(line);
+            if(failed) ++failures;
+        }
+
+        if(failures > 0) {
+            System.out.println(failures +
+                " level(s) played differently at another tick rate");
+            System.exit(1);
+        }
+    }
+
+    // The board after each tenth of a second, less the tick count and
+    // what is left over of the last tick, which depend on the rate.  At
+    // those moments, nothing is left over until the level ends, and
+    // then only the rest of the tick that it ended in.
+    private static ArrayList<int[]> play(int level, int rate) {
+        Board board = ScriptedGame.load(level);
+        board.set_tick_rate(rate);
+        board.launch_marble();
+        board.board_timeout = -1;
+        board.launch_timeout_start = -1;
+        board.launch_timeout = -1;
+
+        ArrayList<Tile> wheels = new ArrayList<>();
+        for(Tile[] row : board.tiles)
+            for(Tile tile : row)
+                if(tile instanceof Wheel) wheels.add(tile);
+        Random r = new Random(level);
+
+        ArrayList<int[]> boards = new ArrayList<>();
+        Snapshot s = new Snapshot();
+        for(int i=0; i < played_secs * per_sec; ++i) {
+            board.save(s);
+            int[] a = Arrays.copyOf(s.data, s.size);
+            a[1] = a[3] = 0;
+            boards.add(a);
+            if(board.board_state != Board.INCOMPLETE) break;
+
+            if(!wheels.isEmpty()) {
+                Tile w = wheels.get(r.nextInt(wheels.size()));
+                board.input(w.tile_x, w.tile_y, r.nextInt(5));
+            }
+            for(int t=0; t < rate / per_sec; ++t) board.update();
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.util.*;
+
+// Records a few minutes of scripted play on every level, then checks
+// that a Playback of the recording, seeking back and forth among a
+// spread of ticks, reproduces the board exactly at each one.  Also
+// reports the size of each recording and the average time per seek.
+// With -r, the game is ticked at the given rate instead of the default.
+public class ReplayCheck
+{
+    private static final int recorded_ticks = 15000;
+    private static final int sample_interval = 317;
+
+    public static void main(String[] args) throws Exception {
+        int rate = Board.frames_per_sec;
+        for(int i=0; i < args.length; ++i) {
+            if(args[i].equals("-r")) rate = Integer.parseInt(args[++i]);
+            else throw new IllegalArgumentException(args[i]);
+        }
+
+        int levels = ScriptedGame.numLevels();
+        int failures = 0;
+        for(int level=0; level < levels; ++level) {
+            ScriptedGame game = new ScriptedGame(level);
+            Board board = game.board;
+            board.set_tick_rate(rate);
+            board.record(new Replay(level, board.seed));
+
+            // Play until the time is up or the level ends, saving the
+            // board every so often along the way
+            Snapshot s = new Snapshot();
+            ArrayList<int[]> expected = new ArrayList<>();
+            while(board.ticks < recorded_ticks) {
+                if(board.ticks % sample_interval == 0) {
+                    board.save(s);
+                    expected.add(Arrays.copyOf(s.data, s.size));
+                }
+                game.gesture();
+                game.step();
+                if(game.board != board) break;
+            }
+            byte[] bytes = board.recording().toByteArray();
+
+            Playback playback = new Playback(Replay.read(bytes),
+                ScriptedGame.load(level));
+            List<Integer> order = new ArrayList<>();
+            for(int i=0; i < expected.size(); ++i) order.add(i);
+            Collections.shuffle(order, new Random(level));
+            int mismatches = 0;
+            long start = System.nanoTime();
+            for(int i : order) {
+                playback.seek(i * sample_interval);
+                playback.board.save(s);
+                if(!Arrays.equals(Arrays.copyOf(s.data, s.size),
+                    expected.get(i))) ++mismatches;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.println("level " + level + ": " + board.ticks +
+                " ticks in " + bytes.length + " bytes, " +
+                String.format("%.2f", elapsed / 1e6 / order.size()) +
+                " ms per seek, " + mismatches + " mismatches");
+            if(mismatches > 0) ++failures;
+        }
+
+        if(failures > 0) {
+            System.out.println(failures + " level(s) did not replay exactly");
+            System.exit(1);
+        }
+    }
+}
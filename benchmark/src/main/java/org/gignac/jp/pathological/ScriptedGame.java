@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.io.*;
+import java.util.*;
+
+// A board played by a fixed script of taps and flicks on its wheels.
+// The timers are disabled so that the game can run indefinitely, and
+// the board is reloaded if it is ever completed.  A benchmark can have
+// the reloading done ahead of time, outside what it measures; see
+// prepare().
+class ScriptedGame
+{
+    private static final int script_period = 9;
+    private static final int script_length = 64;
+    private static final int flick_distance = Marble.marble_size * 2;
+    private static final Clock clock = new Clock() {
+        public long uptimeMillis() {
+            return 0;
+        }
+
+        public long currentTimeMillis() {
+            return 0;
+        }
+    };
+    private static byte[] boards;
+
+    public final int level;
+    public Board board;
+    private Board spare;        // The board to play next; see prepare()
+    private final int[] script;
+    private int tick;
+    private Events events;
+    private final InputQueue input = new InputQueue();
+
+    public ScriptedGame(int level) {
+        this.level = level;
+        board = fresh();
+
+        // Each step of the script is a gesture on a randomly chosen wheel
+        Random r = new Random(level);
+        ArrayList<Tile> wheels = new ArrayList<>();
+        for(Tile[] row : board.tiles)
+            for(Tile tile : row)
+                if(tile instanceof Wheel) wheels.add(tile);
+        script = new int[script_length * 4];
+        for(int i=0; i < script.length; i += 4) {
+            if(wheels.isEmpty()) {
+                script[i] = -1;
+                continue;
+            }
+            Tile w = wheels.get(r.nextInt(wheels.size()));
+            script[i] = Marble.marble_size + w.left + Tile.tile_size/2;
+            script[i+1] = Marble.marble_size + w.top + Tile.tile_size/2;
+            if(r.nextInt(3) > 0) {
+                int dir = r.nextInt(4);
+                script[i+2] = Marble.dx[dir] * flick_distance;
+                script[i+3] = Marble.dy[dir] * flick_distance;
+            }
+        }
+    }
+
+    public static synchronized byte[] boards() throws IOException {
+        if(boards != null) return boards;
+        InputStream in = ScriptedGame.class.getResourceAsStream("/all_boards.txt");
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while((n = in.read(buf)) > 0) out.write(buf, 0, n);
+            boards = out.toByteArray();
+        } finally {
+            in.close();
+        }
+        return boards;
+    }
+
+    public static int numLevels() throws IOException {
+        BufferedReader f = new BufferedReader(new InputStreamReader(
+            new ByteArrayInputStream(boards())));
+        int rows = 0;
+        String line;
+        while((line = f.readLine()) != null)
+            if(!line.isEmpty() && line.charAt(0) == '|') ++rows;
+        return rows / Board.horiz_tiles;
+    }
+
+    public static Board load(int level) {
+        try {
+            return new Board(Sounds.silent, clock, level,
+                new ByteArrayInputStream(boards()), level);
+        } catch(IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static boolean hasTile(int level, Class<? extends Tile> type) {
+        for(Tile[] row : load(level).tiles)
+            for(Tile tile : row)
+                if(type.isInstance(tile)) return true;
+        return false;
+    }
+
+    private Board fresh() {
+        Board board = load(level);
+        board.launch_marble();
+        board.board_timeout = -1;
+        board.launch_timeout_start = -1;
+        board.launch_timeout = -1;
+        return board;
+    }
+
+    // Loads the board to start over with once the level ends, if that
+    // hasn't been done already
+    public void prepare() {
+        if(spare == null) spare = fresh();
+    }
+
+    public void reset() {
+        prepare();
+        board = spare;
+        spare = null;
+        if(events != null) board.send_events(events);
+    }
+
+    // Keeps sending the game's events to the ring, across reloads
+    public void send_events(Events events) {
+        this.events = events;
+        board.send_events(events);
+    }
+
+    public int tick() {
+        gesture();
+        return step();
+    }
+
+    // Make the scripted gesture, if one is due on this tick, as the UI
+    // thread would.  It takes effect at the start of the next step.
+    public void gesture() {
+        if(tick % script_period == 0) {
+            int i = (tick / script_period) % script_length * 4;
+            int x = script[i];
+            if(x >= 0) {
+                int y = script[i+1];
+                input.down(0, x, y, tick);
+                input.up(board, 0, x + script[i+2], y + script[i+3], tick);
+            }
+        }
+    }
+
+    // Advance the board by one tick
+    public int step() {
+        ++tick;
+        input.apply(board);
+        int status = board.update();
+        if(status != Board.INCOMPLETE) reset();
+        return status;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// The cost of saving a board to a Snapshot, and of restoring one,
+// averaged over every level after a while of scripted play
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SnapshotBenchmark
+{
+    private static final int played_ticks = 2000;
+
+    private Board[] boards;
+    private Snapshot[] snapshots;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        int levels = ScriptedGame.numLevels();
+        boards = new Board[levels];
+        snapshots = new Snapshot[levels];
+        for(int level=0; level < levels; ++level) {
+            ScriptedGame game = new ScriptedGame(level);
+            for(int i=0; i < played_ticks; ++i) game.tick();
+            boards[level] = game.board;
+            snapshots[level] = new Snapshot();
+            game.board.save(snapshots[level]);
+        }
+    }
+
+    @Benchmark
+    public Snapshot save() {
+        int i = next;
+        if(++next == boards.length) next = 0;
+        boards[i].save(snapshots[i]);
+        return snapshots[i];
+    }
+
+    @Benchmark
+    public Board restore() {
+        int i = next;
+        if(++next == boards.length) next = 0;
+        boards[i].restore(snapshots[i]);
+        return boards[i];
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+// Runs the Solver on each of the given levels, or on every level, and
+// reports the best score found along with how much time was left on
+// the board and launch timers.  Options:
+//   -n <nodes>    the most positions to expand per level
+//   -t <threads>  the number of threads to search with
+public class Solve
+{
+    public static void main(String[] args) throws Exception {
+        int nodes = 0, threads = 0;
+        int[] levels = new int[args.length];
+        int nlevels = 0;
+        for(int i=0; i < args.length; ++i) {
+            if(args[i].equals("-n")) nodes = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-t")) threads = Integer.parseInt(args[++i]);
+            else levels[nlevels++] = Integer.parseInt(args[i]);
+        }
+        if(nlevels == 0) {
+            nlevels = ScriptedGame.numLevels();
+            levels = new int[nlevels];
+            for(int i=0; i < nlevels; ++i) levels[i] = i;
+        }
+
+        int unsolved = 0;
+        for(int i=0; i < nlevels; ++i) {
+            int level = levels[i];
+            Solver solver = new Solver(ScriptedGame.boards(), level, level);
+            if(nodes > 0) solver.max_nodes = nodes;
+            if(threads > 0) solver.threads = threads;
+            long start = System.nanoTime();
+            Solver.Solution s = solver.solve();
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            String result;
+            if(s == null) {
+                result = "no solution found";
+                ++unsolved;
+            } else {
+                result = "score " + s.score + " in " + seconds(s.ticks) +
+                    "s with " + s.inputs.length + " inputs, " +
+                    millis(s.board_slack) + "s left on the board timer, " +
+                    millis(s.launch_slack) + "s on the launch timer";
+            }
+            System.out.println("level " + level + ": " + result + " (" +
+                solver.expanded() + " positions in " +
+                String.format("%.1f", elapsed) + "s)");
+        }
+        if(unsolved > 0)
+            System.out.println(unsolved + " level(s) not solved");
+    }
+
+    private static String seconds(int ticks) {
+        return String.format("%.1f", (float)ticks / Board.frames_per_sec);
+    }
+
+    private static String millis(int ms) {
+        return String.format("%.1f", ms / 1000f);
+    }
+}
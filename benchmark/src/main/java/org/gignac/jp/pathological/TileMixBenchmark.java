@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// The cost of Board.update() averaged over every level that contains
+// a particular kind of tile.  These are the heavier tiles, since they
+// hold on to marbles or create new ones.  As in LevelBenchmark, the
+// ticks are measured in batches, with the levels that end loaded again
+// in between.
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileMixBenchmark
+{
+    private static final int batch = 100;   // Ticks per invocation
+
+    @Param({"replicator", "teleporter", "buffer"})
+    public String mix;
+
+    private ScriptedGame[] games;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        Class<? extends Tile> type;
+        if(mix.equals("replicator")) type = Replicator.class;
+        else if(mix.equals("teleporter")) type = Teleporter.class;
+        else if(mix.equals("buffer")) type = Buffer.class;
+        else throw new IllegalArgumentException(mix);
+
+        ArrayList<ScriptedGame> list = new ArrayList<>();
+        for(int level=0; level < ScriptedGame.numLevels(); ++level)
+            if(ScriptedGame.hasTile(level, type))
+                list.add(new ScriptedGame(level));
+        games = list.toArray(new ScriptedGame[list.size()]);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        for(ScriptedGame game : games) game.prepare();
+    }
+
+    private int ticks() {
+        int status = 0;
+        for(int i=0; i < batch; ++i) {
+            ScriptedGame game = games[next];
+            if(++next == games.length) next = 0;
+            status |= game.tick();
+        }
+        return status;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(batch)
+    public int ticksPerSecond() {
+        return ticks();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(batch)
+    public int nsPerTick() {
+        return ticks();
+    }
+}
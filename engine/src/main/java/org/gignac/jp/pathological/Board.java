@@ -0,0 +1,939 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.io.*;
+import java.util.*;
+
+@SuppressWarnings("WeakerAccess")
+class Board {
+    public static final int INCOMPLETE = 0;
+    public static final int COMPLETE = 1;
+    public static final int LAUNCH_TIMEOUT = -1;
+    public static final int BOARD_TIMEOUT = -2;
+    public static final int CLICK = 4;   // See input()
+    public static final int frames_per_sec = 50;    // Steps; see update()
+    public static final int step_ms = 1000 / frames_per_sec;
+    // Time is measured by how far the marbles have moved in it, in
+    // fractions of a pixel; see update()
+    private static final int step_distance =
+        Marble.marble_speed << Marble.frac_bits;
+    private static final String default_colors = "23468";
+    private static final String default_stoplight = "643";
+    private static final int default_launch_timer = 6;
+    private static final int default_board_timer = 30;
+    public static final int vert_tiles = 8;
+    public static final int horiz_tiles = 6;
+    public static final int board_width = horiz_tiles * Tile.tile_size;
+    public static final int board_height = vert_tiles * Tile.tile_size;
+    public static final int screen_width = board_width + Marble.marble_size;
+    public static final int screen_height = board_height + Marble.marble_size;
+    private static final int launch_key = 1 << 15;     // See key()
+    private static final int marble_keys = 1 << 16;
+    public static final int snapshot_version = 3;   // Bump when save() changes
+    // Bump when a change to the rules, the marbles' paths or the random
+    // draws could change how a game plays out; see HintBook
+    public static final int engine_version = 3;
+    public static final int launch_queue_size =
+        screen_width * 3 / Marble.marble_size;
+    public Sounds sounds;
+    private Events events;          // See send_events()
+    public final Clock clock;
+    public final long seed;
+    final Rng launch_random;    // Colors for the launch queue
+    final Rng trigger_random;   // Colors for the trigger
+    public final int level;
+    public Trigger trigger;
+    public Stoplight stoplight;
+    public final Marbles marbles;
+    public final Tile[][] tiles;
+    public final Wheel[] wheels;    // In the order that tiles are stored
+    private final Tile[] stateful;  // The tiles that save() anything
+    long zobrist;                   // See hash()
+    private final long[] active;    // Tiles that need update() each tick
+    int dirty_wheels;
+    int incomplete_wheels;
+    private final int[][] row_events;   // See compile_tracks()
+    private final int[][] col_events;
+    private final int[] launch_queue;   // A ring, starting at launch_head
+    private int launch_head;
+    volatile int board_state;       // Read from the UI thread
+    public int ticks;               // Ticks simulated so far
+    public int tick_rate = frames_per_sec;  // See set_tick_rate()
+    private int tick_rest;          // Of the distance; see update()
+    private int step_clock;         // The distance into the current step
+    private Replay recording;
+    private Snapshot keyframe;
+    private volatile boolean paused;    // Set from the UI thread
+    public String name;
+    public int live_marbles_limit;
+    int launch_timeout;             // The timers are in milliseconds
+    int launch_timeout_start;
+    public int board_timeout;
+    public int board_timeout_start;
+    public ColorSampler colors;     // For the launch queue and triggers
+    public ColorSampler trigger_colors; // For a trigger's first colors
+    public String firstColors;
+    float launch_queue_offset;
+    long pause_changed;
+    public int delay = 1000000;     // Microseconds; see GameActivity
+    private int score = 0;
+
+    public Board(Sounds sounds, Clock clock, InputStream boards, int level)
+    {
+        this(sounds, clock, default_seed(clock, level), boards, level);
+    }
+
+    // The same seed, level and input always produce the same game.  A
+    // malformed level line throws an IllegalArgumentException.
+    public Board(Sounds sounds, Clock clock, long seed,
+                 InputStream boards, int level)
+    {
+        this.sounds = sounds;
+        this.clock = clock;
+        this.seed = seed;
+        this.level = level;
+        this.marbles = new Marbles();
+        this.trigger = null;
+        this.stoplight = null;
+        this.launch_queue = new int[launch_queue_size];
+        this.board_state = INCOMPLETE;
+        this.paused = false;
+        this.live_marbles_limit = 10;
+        this.launch_timeout = -1;
+        this.board_timeout = -1;
+        this.colors = ColorSampler.parse(default_colors);
+        this.trigger_colors = ColorSampler.parse(default_colors, false);
+        this.firstColors = "";
+        this.pause_changed = clock.uptimeMillis()-10000;
+
+        active = new long[(vert_tiles * horiz_tiles + 63) / 64];
+
+        // Give the launch queue and the trigger separate streams, so
+        // that neither affects the colors that the other gets
+        Rng random = new Rng(seed);
+        launch_random = random.split();
+        trigger_random = random.split();
+
+        set_launch_timer( default_launch_timer);
+        set_board_timer( default_board_timer);
+
+        // Create the board array
+        tiles = new Tile[vert_tiles][];
+        for( int j=0; j < vert_tiles; ++j)
+            tiles[j] = new Tile[horiz_tiles];
+
+        // Load the level
+        try {
+            _load(boards, level);
+        } catch(IOException e) {
+            //
+        }
+
+        // Size the marble pool up front so that it rarely has to
+        // grow once the level is under way
+        marbles.reserve(live_marbles_limit * 2);
+
+        row_events = new int[vert_tiles][];
+        col_events = new int[horiz_tiles][];
+        compile_tracks();
+
+        // Index the wheels
+        int numwheels = 0;
+        for(Tile[] row : tiles)
+            for(Tile tile : row)
+                if(tile != null && tile.kind == Tile.WHEEL) ++numwheels;
+        wheels = new Wheel[numwheels];
+        numwheels = 0;
+        for(Tile[] row : tiles)
+            for(Tile tile : row)
+                if(tile != null && tile.kind == Tile.WHEEL)
+                    wheels[numwheels++] = (Wheel)tile;
+        incomplete_wheels = numwheels;
+        recheck_wheels();
+
+        // Index the tiles whose state can change during play
+        ArrayList<Tile> list = new ArrayList<>();
+        for(Tile[] row : tiles)
+            for(Tile tile : row)
+                if(tile != null && (Tile.stateful & (1 << tile.kind)) != 0)
+                    list.add(tile);
+        stateful = list.toArray(new Tile[list.size()]);
+
+        // Fill up the launch queue
+        for( int i=0; i < launch_queue_size; ++i) {
+            if( i < firstColors.length()) {
+                launch_queue[i] = firstColors.charAt(i)-'0';
+                continue;
+            }
+            launch_queue[i] = colors.next(launch_random);
+        }
+        rehash();
+    }
+
+    // Seed the randomness based on the level number and
+    // the current time.  Only use the time accurate to
+    // the ten-minute interval.  This will discourage players
+    // from reloading levels repeatedly in order to get
+    // their choice of marbles/trigger/etc.
+    public static long default_seed(Clock clock, int level) {
+        return (clock.currentTimeMillis()/600000)*1000+level;
+    }
+
+    public int update()
+    {
+        // Return INCOMPLETE even if the board is complete.
+        // This ensures that the end of level signal is only
+        // sent once.
+        if(paused || board_state != INCOMPLETE) return INCOMPLETE;
+        if( events != null) events.now = ticks;
+
+        // The marbles move along on every tick, and the rest of the
+        // board in steps, as each one falls due, with the marbles stopped
+        // right on the step.  The distance per tick is a whole number of
+        // steps over the tick rate, so the remainder is carried over to
+        // the next tick; that way the steps come at exactly the same
+        // point in the game at any tick rate.  At the default tick rate,
+        // there is a step per tick.
+        long d = (long)step_distance * frames_per_sec + tick_rest;
+        int distance = (int)(d / tick_rate);
+        tick_rest = (int)(d % tick_rate);
+        while( distance > 0 && board_state == INCOMPLETE) {
+            int n = Math.min(distance, step_distance - step_clock);
+            marbles.advance(this, n);
+            distance -= n;
+            step_clock += n;
+            if( step_clock < step_distance) break;
+            step_clock = 0;
+            marbles.compact();
+            step();
+        }
+
+        ticks += 1;
+        if( recording != null) {
+            if( board_state != INCOMPLETE) {
+                recording.end(ticks);
+            } else if( ticks % (Replay.keyframe_secs * tick_rate) == 0) {
+                save(keyframe);
+                recording.keyframe(ticks, keyframe);
+            }
+        }
+
+        return board_state;
+    }
+
+    // Everything but the marbles' movement
+    private void step() {
+        // Animate the tiles that have something to do, in order
+        for( int w=0; w < active.length; ++w) {
+            long bits = active[w];
+            while( bits != 0) {
+                int b = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int t = w * 64 + b;
+                if( !update_tile(tiles[t / horiz_tiles][t % horiz_tiles]))
+                    active[w] &= ~(1L << b);
+            }
+        }
+
+        // Complete any wheels, if appropriate.  Completing a wheel
+        // can change the trigger or stoplight, which makes the other
+        // wheels dirty again.
+        while( dirty_wheels > 0) {
+            for( Wheel w : wheels) {
+                if( !w.dirty) continue;
+                w.dirty = false;
+                dirty_wheels -= 1;
+                int points = w.maybe_complete(this);
+                if( points == 0) continue;
+                score += points;
+                event(Events.SCORE, points);
+                event(Events.WHEEL_COMPLETED,
+                    w.tile_y * horiz_tiles + w.tile_x);
+            }
+        }
+
+        // Check if the board is complete
+        board_state = incomplete_wheels == 0 ? COMPLETE : INCOMPLETE;
+
+        // Count down the launch timer
+        if(board_state == INCOMPLETE && launch_timeout > 0) {
+            int was = launch_timeout;
+            launch_timeout -= step_ms;
+            if(launch_timeout <= 0) {
+                launch_timeout = 0;
+                board_state = LAUNCH_TIMEOUT;
+            } else warn(Events.LAUNCH_TIMER, was, launch_timeout);
+        }
+
+        // Count down the board timer
+        if( board_state == INCOMPLETE && board_timeout > 0) {
+            int was = board_timeout;
+            board_timeout -= step_ms;
+            if(board_timeout <= 0) {
+                board_timeout = 0;
+                board_state = BOARD_TIMEOUT;
+            } else warn(Events.BOARD_TIMER, was, board_timeout);
+        }
+
+        // Animate the launch queue
+        if( launch_queue_offset > 0) {
+            float speed = Marble.marble_speed*0.2f;  // Nice and slow
+            // If we expect the marble to drop into the
+            // top-right tile, accelerate the animation so
+            // the launch queue doesn't have to jump.  But
+            // wait for 10% of the marble height before we
+            // accelerate, so the marbles don't appear to
+            // overlap.
+            Tile topLeft = tiles[0][0];
+            if( launch_queue_offset < Marble.marble_size * 0.9f &&
+                (topLeft.paths & 8) == 8 &&
+               (topLeft.kind != Tile.WHEEL ||
+                ((Wheel)topLeft).hole(3) < 0))
+                speed = Marble.marble_speed*0.7f;
+            launch_queue_offset -= speed;
+            if(launch_queue_offset < 0) launch_queue_offset = 0;
+        }
+    }
+
+    // Warns of a timer that has just gone from was down to now, if it
+    // passed a minute, half a minute, or any of the last ten seconds
+    private void warn(int type, int was, int now) {
+        int seconds = (now + 999) / 1000;
+        if( seconds * 1000 >= was) return;
+        if( seconds <= 10 || seconds == 30 || seconds == 60)
+            event(type, seconds);
+    }
+
+    // Sends the sounds and other events of the game to the ring instead,
+    // so that the thread running the game needn't play them itself
+    public void send_events(Events events) {
+        this.events = events;
+        this.sounds = events;
+    }
+
+    void event(int type, int value) {
+        if( events != null) events.add(type, value);
+    }
+
+    // Tile.update(), dispatched by kind.  Only these kinds ever ask
+    // to be updated.
+    private boolean update_tile( Tile tile) {
+        switch( tile.kind) {
+        case Tile.WHEEL: return ((Wheel)tile).update(this);
+        case Tile.REPLICATOR: return ((Replicator)tile).update(this);
+        case Tile.TRIGGER: return ((Trigger)tile).update(this);
+        default: return tile.update(this);
+        }
+    }
+
+    // Tile.affect_marble(), dispatched by kind
+    private void affect_tile( Tile tile, int marble, int rposx, int rposy) {
+        switch( tile.kind) {
+        case Tile.WHEEL:
+            ((Wheel)tile).affect_marble(this, marble, rposx, rposy); break;
+        case Tile.BUFFER:
+            ((Buffer)tile).affect_marble(this, marble, rposx, rposy); break;
+        case Tile.DIRECTOR:
+            ((Director)tile).affect_marble(this, marble, rposx, rposy); break;
+        case Tile.FILTER:
+            ((Filter)tile).affect_marble(this, marble, rposx, rposy); break;
+        case Tile.PAINTER:
+            ((Painter)tile).affect_marble(this, marble, rposx, rposy); break;
+        case Tile.REPLICATOR:
+            ((Replicator)tile).affect_marble(this, marble, rposx, rposy); break;
+        case Tile.SHREDDER:
+            ((Shredder)tile).affect_marble(this, marble, rposx, rposy); break;
+        case Tile.SWITCH:
+            ((Switch)tile).affect_marble(this, marble, rposx, rposy); break;
+        case Tile.TELEPORTER:
+            ((Teleporter)tile).affect_marble(this, marble, rposx, rposy); break;
+        default:
+            // Plain tiles, triggers and stoplights
+            tile.steer(this, marble, rposx, rposy);
+        }
+    }
+
+    public void set_tile( int x, int y, Tile tile) {
+        tiles[y][x] = tile;
+        tile.setxy(x,y);
+
+        // If it's a trigger, keep track of it
+        if( tile.kind == Tile.TRIGGER)
+            trigger = (Trigger)tile;
+
+        // If it's a stoplight, keep track of it
+        if( tile.kind == Tile.STOPLIGHT)
+            stoplight = (Stoplight)tile;
+    }
+
+    // Make sure that the tile is updated on each tick until its
+    // update() says that it is done
+    public void activate( Tile tile) {
+        int t = tile.tile_y * horiz_tiles + tile.tile_x;
+        active[t / 64] |= 1L << (t % 64);
+    }
+
+    // Called when the trigger or stoplight changes
+    public void recheck_wheels() {
+        if( wheels == null) return;  // Still loading
+        for( Wheel w : wheels) w.mark_dirty();
+    }
+
+    // Records the inputs from now on, starting with a keyframe of the
+    // board as it stands
+    public void record(Replay replay) {
+        recording = replay;
+        if( tick_rate != frames_per_sec) replay.tick_rate(ticks, tick_rate);
+        keyframe = new Snapshot();
+        save(keyframe);
+        replay.keyframe(ticks, keyframe);
+    }
+
+    public Replay recording() {
+        return recording;
+    }
+
+    // Everything that changes during play, the start delay included,
+    // apart from the pointers, the tick rate and whether the game is
+    // paused, which belong to whoever is running the board.  The
+    // Snapshot can be reused, and only allocates if it needs to grow.
+    // Restoring it into a board of the same level allocates nothing.
+    public void save(Snapshot s) {
+        s.clear();
+        s.put(level);
+        s.put(ticks);
+        s.put(step_clock);
+        s.put(tick_rest);
+        s.put(score);
+        s.put(delay);
+        s.put(board_state);
+        s.put(launch_timeout);
+        s.put(launch_timeout_start);
+        s.put(board_timeout);
+        s.put(board_timeout_start);
+        s.put(Float.floatToIntBits(launch_queue_offset));
+        s.put(dirty_wheels);
+        s.put(incomplete_wheels);
+        for( long bits : active) s.put_long(bits);
+        s.put(launch_queue, launch_queue_size);
+        s.put(launch_head);
+        launch_random.save(s);
+        trigger_random.save(s);
+        marbles.save(s);
+        for( Tile tile : stateful) tile.save(s);
+    }
+
+    public void restore(Snapshot s) {
+        s.pos = 0;
+        if( s.get() != level)
+            throw new IllegalArgumentException("Snapshot of another level");
+        ticks = s.get();
+        step_clock = s.get();
+        tick_rest = s.get();
+        score = s.get();
+        delay = s.get();
+        board_state = s.get();
+        launch_timeout = s.get();
+        launch_timeout_start = s.get();
+        board_timeout = s.get();
+        board_timeout_start = s.get();
+        launch_queue_offset = Float.intBitsToFloat(s.get());
+        dirty_wheels = s.get();
+        incomplete_wheels = s.get();
+        for( int i=0; i < active.length; ++i) active[i] = s.get_long();
+        s.get(launch_queue, launch_queue_size);
+        launch_head = s.get();
+        launch_random.restore(s);
+        trigger_random.restore(s);
+        marbles.restore(s);
+        for( Tile tile : stateful) tile.restore(s);
+        rehash();
+    }
+
+    // A Zobrist hash of the position: what is in the wheels and the
+    // other tiles, the next marble to launch, and the color, position
+    // and direction of each marble.  Boards of the same level with the
+    // same hash are all but certain to be in the same position.  The
+    // timers and the score are left out, so that a position that comes
+    // around again can be recognized.
+    //
+    // Each of these pieces contributes a key, and the hash is the XOR
+    // of the keys, so a change to one piece can be applied by XORing
+    // out its old key and XORing in the new one.  The tiles do this as
+    // they change, keeping zobrist up to date.  The marbles move on
+    // every tick, so their keys are folded in here instead.
+    public long hash() {
+        long h = zobrist;
+        for( int i=0; i < marbles.span(); ++i) {
+            int m = marbles.at(i);
+            if( !marbles.isAlive(m)) continue;
+            h ^= key(marble_keys + (marbles.frac[m] << 6) +
+                (marbles.color[m] << 2) + marbles.direction[m],
+                (marbles.left[m] & 0xffff) | (marbles.top[m] << 16));
+        }
+        return h;
+    }
+
+    // The tiles' part of hash(), leaving out the launcher and the
+    // marbles in play.  Games of a level with different seeds can
+    // still come to the same signature; HintBook is keyed by it.
+    public long signature() {
+        return zobrist ^ key(launch_key, launch_color(0));
+    }
+
+    // The key for a piece of the position being a particular value.
+    // Tiles use where values below launch_key; see Tile.key().
+    static long key(int where, int value) {
+        return Rng.mix((((long)where << 32) | (value & 0xffffffffL)) +
+            0x9e3779b97f4a7c15L);
+    }
+
+    // Computes zobrist from scratch
+    long rehash() {
+        long h = key(launch_key, launch_color(0));
+        for( Tile tile : stateful) h ^= tile.state_key();
+        zobrist = h;
+        return h;
+    }
+
+    public void set_launch_timer( int passes) {
+        launch_timeout_start = (Marble.marble_size +
+            (vert_tiles * Tile.tile_size - Marble.marble_size)
+                * passes) / Marble.marble_speed * step_ms;
+    }
+
+    public void set_board_timer(int seconds) {
+        board_timeout_start = seconds * 1000;
+        board_timeout = board_timeout_start;
+    }
+
+    // The game's rules are written in steps of step_ms, but the board
+    // can be ticked at any rate, such as the display's refresh rate.
+    // The marbles move a fraction of a step on each tick, and the rest
+    // of the board takes whole steps as they fall due, so the game plays
+    // the same at any rate; RateCheck makes sure of it.  Set this before
+    // play begins.
+    public void set_tick_rate(int hz) {
+        tick_rate = hz;
+    }
+
+    public int activateMarble( int color, int cx, int cy, int direction) {
+        return marbles.acquire(color, cx, cy, direction);
+    }
+
+    public void deactivateMarble( int marble) {
+        marbles.release(marble);
+    }
+
+    // The color of the marble that will be launched after i others
+    public int launch_color(int i) {
+        int j = launch_head + i;
+        if( j >= launch_queue_size) j -= launch_queue_size;
+        return launch_queue[j];
+    }
+
+    public void launch_marble() {
+        int head = launch_queue[launch_head];
+        activateMarble( head,
+            -Marble.marble_size/2,
+            -Marble.marble_size/2, 2);
+
+        // The marble's slot goes to the back of the queue, with a new color
+        launch_queue[launch_head] = colors.next(launch_random);
+        if( ++launch_head == launch_queue_size) launch_head = 0;
+        zobrist ^= key(launch_key, head) ^ key(launch_key, launch_color(0));
+        launch_timeout = launch_timeout_start;
+        launch_queue_offset = Marble.marble_size;
+    }
+
+    // Marbles travel in straight lines along the rows and columns, and
+    // can only be affected at a handful of exact positions: the board's
+    // edges, and the points given by each tile's event_offsets().  For
+    // each row, collect the x coordinates at which a marble travelling
+    // along it might be affected; likewise the y coordinates for each
+    // column.  Extra points are harmless, as affect_marble() simply
+    // does nothing there.
+    private void compile_tracks() {
+        int[] events = new int[(Math.max(horiz_tiles, vert_tiles)+1) * 16];
+        for( int j=0; j < vert_tiles; ++j) {
+            int n = 0;
+            events[n++] = -1;
+            events[n++] = Marble.marble_size/2;
+            events[n++] = board_width;
+            for( int i=0; i < horiz_tiles; ++i)
+                n = add_events(events, n, tiles[j][i], i);
+            row_events[j] = sorted_events(events, n);
+        }
+        for( int i=0; i < horiz_tiles; ++i) {
+            int n = 0;
+            events[n++] = -1;
+            events[n++] = board_height;
+            for( int j=0; j < vert_tiles; ++j)
+                n = add_events(events, n, tiles[j][i], j);
+            col_events[i] = sorted_events(events, n);
+        }
+    }
+
+    private static int add_events(int[] events, int n, Tile tile, int index) {
+        if( tile == null) return n;
+        for( int offset : tile.event_offsets())
+            events[n++] = index * Tile.tile_size + offset;
+        return n;
+    }
+
+    private static int[] sorted_events(int[] events, int n) {
+        Arrays.sort(events, 0, n);
+        int u = 0;
+        for( int i=0; i < n; ++i)
+            if( u == 0 || events[i] != events[u-1]) events[u++] = events[i];
+        return Arrays.copyOf(events, u);
+    }
+
+    // The number of pixels that the marble can be moved along before
+    // affect_marble() might have any effect on it
+    public int ahead( int marble)
+    {
+        int cx = marbles.left[marble] + Marble.marble_size/2;
+        int cy = marbles.top[marble] + Marble.marble_size/2;
+
+        // Keep a close eye on marbles off the edge of the board,
+        // looking at them after each step's worth of movement
+        if( cx < 0 || cy < 0 || cx >= board_width || cy >= board_height)
+            return Marble.marble_speed;
+
+        int dir = marbles.direction[marble];
+        int[] events;
+        int pos;
+        if( Marble.dy[dir] == 0) {
+            events = row_events[cy / Tile.tile_size];
+            pos = cx;
+        } else {
+            // Marbles in the leftmost lane are bounced right away
+            if( cx == Marble.marble_size/2) return Marble.marble_speed;
+            events = col_events[cx / Tile.tile_size];
+            pos = cy;
+        }
+
+        // Find the next event along the marble's path.  The edges of
+        // the board are always events, so there is one.
+        int i = Arrays.binarySearch(events, pos);
+        if( dir == 1 || dir == 2) {
+            i = i >= 0 ? i+1 : -i-1;
+            return events[i] - pos;
+        } else {
+            i = i >= 0 ? i-1 : -i-2;
+            return pos - events[i];
+        }
+    }
+
+    public void affect_marble( int marble)
+    {
+        final int[] direction = marbles.direction;
+        int cx = marbles.left[marble] + Marble.marble_size/2;
+        int cy = marbles.top[marble] + Marble.marble_size/2;
+
+        // Bounce marbles off of the left
+        if( cx == Marble.marble_size/2) {
+            direction[marble] = 1;
+            return;
+        }
+
+        int effective_cx = cx + Marble.marble_size/2 * Marble.dx[direction[marble]];
+        int effective_cy = cy + Marble.marble_size/2 * Marble.dy[direction[marble]];
+
+        if( cx < 0) {
+            if(cy == board_height - Marble.marble_size/2) {
+                direction[marble] = 0;
+                return;
+            }
+            if( cy == Marble.marble_size/2) {
+                direction[marble] = 2;
+                return;
+            }
+
+            // The special case of new marbles at the top
+            effective_cx = cx + 1 + Marble.marble_size;
+            effective_cy = cy;
+        }
+
+        int tile_x = effective_cx / Tile.tile_size;
+        int tile_y = effective_cy / Tile.tile_size;
+        int tile_xr = cx - tile_x * Tile.tile_size;
+        int tile_yr = cy - tile_y * Tile.tile_size;
+
+        if( tile_y < 0) return;
+
+        Tile tile = tiles[tile_y][tile_x];
+
+        if( cx < 0 && direction[marble] != 1) {
+            // The special case of new marbles on the left
+            if( tile_yr == Tile.tile_size / 2 && ((tile.paths & 8) == 8)) {
+                if( tile.kind == Tile.WHEEL) {
+                    Wheel w = (Wheel)tile;
+                    if( w.spinpos > 0 || w.hole(3) != -3) return;
+                    w.set_hole(3, -2);
+                    direction[marble] = 1;
+                    this.launch_marble();
+                } else if( this.marbles.size() < live_marbles_limit) {
+                    direction[marble] = 1;
+                    this.launch_marble();
+                }
+            }
+        } else
+            affect_tile( tile, marble, tile_xr, tile_yr);
+    }
+
+    private Tile whichTile(int posx, int posy) {
+        // Determine which tile the pointer is in
+        int tile_x = (posx - Marble.marble_size) / Tile.tile_size;
+        int tile_y = (posy - Marble.marble_size) / Tile.tile_size;
+        if( tile_x >= 0 && tile_x < horiz_tiles &&
+            tile_y >= 0 && tile_y < vert_tiles) {
+            return tiles[tile_y][tile_x];
+        }
+        return null;
+    }
+
+    // Whether a gesture that moved this far is a tap
+    public static boolean is_tap(int dx, int dy) {
+        return dx*dx + dy*dy <= Marble.marble_size*Marble.marble_size;
+    }
+
+    // What a gesture from (downx,downy) to (upx,upy), in board
+    // coordinates, amounts to: the tile index * 5 + the input() action,
+    // as a Replay records it, or -1 if it doesn't start on a tile.  Only
+    // the layout of the board is looked at, so any thread may call this.
+    public int gesture(int downx, int downy, int upx, int upy)
+    {
+        int dx = upx - downx;
+        int dy = upy - downy;
+        int dx2 = dx*dx;
+        int dy2 = dy*dy;
+        Tile downtile = whichTile(downx,downy);
+        if(downtile == null) return -1;
+        int downtile_x = downx / Tile.tile_size;
+        int downtile_y = (downy - Marble.marble_size) / Tile.tile_size;
+        int tile_xr = downx-(downtile_x*Tile.tile_size);
+        int tile_yr = downx-Marble.marble_size-(downtile_y*Tile.tile_size);
+
+        // Use a distance threshold to decide whether the gesture is a tap
+        // or a flick.  But use a smaller threshold if the flick starts near
+        // a hole position and heads in the outward direction.
+        int flickThreshold = Marble.marble_size;
+        int dir = (dx2>dy2)?(dx>0?1:3):(dy>0?2:0);
+        int xmo = tile_xr-Wheel.holecenter_x(0, dir);
+        int ymo = tile_yr-Wheel.holecenter_y(0, dir);
+        int nearThreshold = Marble.marble_size * 5/3;
+        boolean startedNearMarble =
+            (xmo*xmo+ymo*ymo) <= nearThreshold * nearThreshold;
+        if(startedNearMarble) flickThreshold /= 2;
+        int tile = downtile.tile_y * horiz_tiles + downtile.tile_x;
+        if(dx2+dy2 <= flickThreshold*flickThreshold) return tile * 5 + CLICK;
+        return tile * 5 + dir;
+    }
+
+    // A tap on a tile (CLICK), or a flick on it in the given direction.
+    // This is all that a Replay needs to record of the pointer events.
+    public void input(int tile_x, int tile_y, int action) {
+        if( recording != null)
+            recording.input(ticks, tile_y * horiz_tiles + tile_x, action);
+        Tile tile = tiles[tile_y][tile_x];
+        if( action == CLICK)
+            tile.click(this, Tile.tile_size/2, Tile.tile_size/2);
+        else
+            tile.flick(this, Tile.tile_size/2, Tile.tile_size/2, action);
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    public void _load(InputStream boards, int level)
+        throws IOException
+    {
+        BufferedReader f = new BufferedReader( new InputStreamReader(boards));
+
+        // Skip the previous levels
+        int j = 0;
+        while( j < horiz_tiles * level) {
+            String line = f.readLine();
+            if( line==null) {
+                f.close();
+                return;
+            }
+            if( line.isEmpty()) continue;
+            if( line.charAt(0) == '|') j += 1;
+        }
+
+        Vector<Tile> teleporters = new Vector<>();
+        String teleporter_names = "";
+        String stoplight = default_stoplight;
+
+        int numwheels = 0;
+        int boardtimer = -1;
+
+        j = 0;
+        while( j < horiz_tiles) {
+            String line = f.readLine();
+            if(line.isEmpty()) continue;
+
+            if( line.charAt(0) != '|') {
+                if( line.startsWith("name="))
+                    name = line.substring(5);
+                else if( line.startsWith("maxmarbles="))
+                    live_marbles_limit = Integer.parseInt(line.substring(11));
+                else if( line.startsWith("launchtimer="))
+                    set_launch_timer( Integer.parseInt(line.substring(12)));
+                else if( line.startsWith("boardtimer="))
+                    boardtimer = Integer.parseInt(line.substring(11));
+                else if( line.startsWith("colors=")) {
+                    try {
+                        colors = ColorSampler.parse(line.substring(7));
+                        trigger_colors =
+                            ColorSampler.parse(line.substring(7), false);
+                    } catch(IllegalArgumentException e) {
+                        throw new IllegalArgumentException(
+                            "Bad level line: " + line, e);
+                    }
+                } else if( line.startsWith("firstcolors=")) {
+                        firstColors = "";
+                        for( char c : line.substring(12).toCharArray()) {
+                            if( c >= '0' && c <= '8') firstColors = firstColors + c;
+                        }
+                } else if( line.startsWith("stoplight=")) {
+                    stoplight = "";
+                    for(char c : line.substring(10).toCharArray())
+                        if( c >= '0' && c <= '7')
+                            stoplight = stoplight + c;
+                }
+
+                continue;
+            }
+
+            for( int i=0; i < vert_tiles; ++i) {
+                char type = line.charAt(i*4+1);
+                char paths = line.charAt(i*4+2);
+                int pathsint = paths-'0';
+                if( paths == ' ') pathsint = 0;
+                else if( paths >= 'a') pathsint = paths-'a'+10;
+                char color = line.charAt(i*4+3);
+                int colorint;
+                if( color == ' ') colorint = 0;
+                else if( color >= 'a') colorint = color-'a'+10;
+                else if( color >= '0' && color <= '9') colorint = color-'0';
+                else colorint = 0;
+
+                // Rotate the paths to account for portrait mode
+                pathsint = (pathsint >> 1) | ((pathsint & 1)<<3);
+
+                Tile tile = null;
+                if( type == 'O') {
+                    tile = new Wheel(this, pathsint);
+                    numwheels += 1;
+                } else if( type == '%') tile = new Trigger(this);
+                else if( type == '!') tile = new Stoplight(this, stoplight);
+                else if( type == '&') tile = new Painter(this, pathsint, colorint);
+                else if( type == '#') tile = new Filter(this, pathsint, colorint);
+                else if( type == '@') {
+                    if( color == ' ') tile = new Buffer(this, pathsint, -1);
+                    else tile = new Buffer(this, pathsint, colorint);
+                }
+                else if( type == ' ' ||
+                    (type >= '0' && type <= '8')) tile = new Tile(this, pathsint);
+                else if( type == 'X') tile = new Shredder(this, pathsint);
+                else if( type == '*') tile = new Replicator(this, pathsint, colorint);
+                else if( type == '^') {
+                    if( color == ' ') tile = new Director(this, pathsint, 3);
+                    else if( color == '>') tile = new Switch(this, pathsint, 3, 0);
+                    else if( color == 'v') tile = new Switch(this, pathsint, 3, 1);
+                    else if( color == '<') tile = new Switch(this, pathsint, 3, 2);
+                } else if( type == '>') {
+                    if( color == ' ') tile = new Director(this, pathsint, 0);
+                    else if( color == '^') tile = new Switch(this, pathsint, 0, 3);
+                    else if( color == 'v') tile = new Switch(this, pathsint, 0, 1);
+                    else if( color == '<') tile = new Switch(this, pathsint, 0, 2);
+                } else if( type == 'v') {
+                    if( color == ' ') tile = new Director(this, pathsint, 1);
+                    else if( color == '^') tile = new Switch(this, pathsint, 1, 3);
+                    else if( color == '>') tile = new Switch(this, pathsint, 1, 0);
+                    else if( color == '<') tile = new Switch(this, pathsint, 1, 2);
+                } else if( type == '<') {
+                    if( color == ' ') tile = new Director(this,pathsint, 2);
+                    else if( color == '^') tile = new Switch(this, pathsint, 2, 3);
+                    else if( color == '>') tile = new Switch(this, pathsint, 2, 0);
+                    else if( color == 'v') tile = new Switch(this, pathsint, 2, 1);
+                }
+                else if( type == '=') {
+                    if( teleporter_names.indexOf(color) >= 0) {
+                        Tile other = teleporters.get( teleporter_names.indexOf(color));
+                        tile = new Teleporter( this, pathsint, (Teleporter)other);
+                    } else {
+                        tile = new Teleporter( this, pathsint, null);
+                        teleporters.addElement( tile);
+                        teleporter_names = teleporter_names + color;
+                    }
+                }
+
+                this.set_tile( j, vert_tiles-i-1, tile);
+
+                if( type >= '0' && type <= '8') {
+                    int direction;
+                    if( color == '^') direction = 3;
+                    else if( color == '>') direction = 0;
+                    else if( color == 'v') direction = 1;
+                    else direction = 2;
+                    activateMarble( type-'0',
+                        tile.left + Tile.tile_size/2,
+                        tile.top + Tile.tile_size/2,
+                        direction);
+                }
+            }
+
+            j += 1;
+        }
+        if( boardtimer < 0) boardtimer = default_board_timer * numwheels;
+        this.set_board_timer( boardtimer);
+
+        f.close();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void setPaused(boolean paused) {
+        if(paused == this.paused) return;
+        pause_changed = clock.uptimeMillis();
+        this.paused = paused;
+    }
+
+    public int score() {
+        return score;
+    }
+
+    public int emptyHolePercentage() {
+        int nHoles = 0;
+        int nEmpty = 0;
+        for( Wheel w : wheels) {
+            nHoles += 4;
+            nEmpty += Integer.bitCount(w.marbles & 0x80808080);
+        }
+        return (nEmpty * 100 + nHoles/2) / nHoles;
+    }
+
+    public int timeRemainingPercentage() {
+        return (board_timeout * 100 + board_timeout_start/2)
+                / board_timeout_start;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+final class Buffer extends TunnelTile
+{
+    private static final int[] buffer_offsets = {
+        tile_size/2 - Marble.marble_size, tile_size/2,
+        tile_size/2 + Marble.marble_size };
+    int marble;
+    private int entering;
+
+    public Buffer(Board board, int paths, int color) {
+        super(board, paths, BUFFER);
+        marble = color;
+        entering = -1;
+    }
+
+    @Override
+    public int[] event_offsets() {
+        return buffer_offsets;
+    }
+
+    @Override
+    public long state_key() {
+        return key(0, marble);
+    }
+
+    @Override
+    public void save(Snapshot s) {
+        s.put(marble);
+        s.put(entering);
+    }
+
+    @Override
+    public void restore(Snapshot s) {
+        marble = s.get();
+        entering = s.get();
+    }
+
+    public void affect_marble(Board board, int marble, int x, int y)
+    {
+        Sounds sounds = board.sounds;
+        final Marbles marbles = board.marbles;
+        final int direction = marbles.direction[marble];
+
+        // Watch for marbles entering
+        if((x+Marble.marble_size == tile_size/2 && direction == 1) ||
+           (x-Marble.marble_size == tile_size/2 && direction == 3) ||
+           (y+Marble.marble_size == tile_size/2 && direction == 2) ||
+           (y-Marble.marble_size == tile_size/2 && direction == 0))
+        {
+            if( entering >= 0) {
+                // Bump the marble that is currently entering
+                int newmarble = entering;
+                marbles.left[newmarble] = left + (tile_size-Marble.marble_size)/2;
+                marbles.top[newmarble] = top + (tile_size-Marble.marble_size)/2;
+                marbles.direction[newmarble] = direction;
+                marbles.wake(newmarble);
+
+                sounds.play_sound( Sounds.ping);
+
+                // Let the base class affect the marble
+                super.affect_marble(board, newmarble,
+                    tile_size/2, tile_size/2);
+            } else if( this.marble >= 0) {
+                // Bump the marble that is currently caught
+                int newmarble = board.activateMarble(this.marble,
+                    left + tile_size/2, top + tile_size/2,
+                    direction);
+
+                sounds.play_sound( Sounds.ping);
+
+                // Let the base class affect the marble
+                super.affect_marble(board, newmarble,
+                    tile_size/2, tile_size/2);
+
+                rekey(0, this.marble, -1);
+                this.marble = -1;
+            }
+
+            // Remember which marble is on its way in
+            entering = marble;
+        } else if( x == tile_size/2 && y == tile_size/2) {
+            // Catch this marble
+            rekey(0, this.marble, marbles.color[marble]);
+            this.marble = marbles.color[marble];
+            board.deactivateMarble( marble);
+            entering = -1;
+        }
+    }
+}
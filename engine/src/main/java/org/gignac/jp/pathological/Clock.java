@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+// The time sources used by the board.  The simulation itself only
+// counts ticks; these are for seeding and for the pause animation.
+interface Clock
+{
+    Clock system = new Clock() {
+        public long uptimeMillis() {
+            return System.nanoTime() / 1000000;
+        }
+
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    // Milliseconds since some arbitrary fixed point, not counting sleep
+    long uptimeMillis();
+
+    // Milliseconds since the epoch
+    long currentTimeMillis();
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+// Draws marble colors at random, each with a weight of its own, in
+// constant time by Vose's alias method.  The weights are spread over as
+// many columns of equal height as there are colors: each column holds
+// one color up to its threshold and another, its alias, above it, so a
+// draw is one uniform pick of a column and one of a height.  A level's
+// sampler is built once, when its colors are read.
+final class ColorSampler
+{
+    public static final int max_colors = 9;     // Digits 0 to 8
+    private static final int crazy = 8;         // The crazy marbles
+    private static final long one = 1L << 31;   // A full column
+    private final int[] color;
+    private final int[] alias;
+    private final long[] threshold;
+
+    // Parses a level's colors: color digits, separated by commas, each
+    // optionally followed by a colon and a weight, as in "2,3,8:0.5".
+    // A color without a weight gets 1, except for the crazy marbles,
+    // which are less frequent and get a third.  The weights of a color
+    // given more than once are added together.  Throws an
+    // IllegalArgumentException if a weight is malformed or negative, or
+    // if no color has any weight.
+    public static ColorSampler parse(String spec) {
+        return parse(spec, true);
+    }
+
+    // As above, or if not weighted, with each color as likely as the
+    // others, whatever its weight.  A color given more than once still
+    // counts that many times.
+    public static ColorSampler parse(String spec, boolean weighted) {
+        double[] weights = new double[max_colors];
+        int i = 0, n = spec.length();
+        while( i < n) {
+            char c = spec.charAt(i++);
+            if( c < '0' || c > '8') continue;
+            double w = c - '0' == crazy ? 1.0 / 3 : 1.0;
+            if( i < n && spec.charAt(i) == ':') {
+                int start = ++i;
+                while( i < n && (Character.isDigit(spec.charAt(i)) ||
+                    spec.charAt(i) == '.')) ++i;
+                if( i == start || (i < n && spec.charAt(i) != ',' &&
+                    !Character.isWhitespace(spec.charAt(i))))
+                    throw new IllegalArgumentException("Bad weight: " + spec);
+                w = Double.parseDouble(spec.substring(start, i));
+            }
+            weights[c - '0'] += weighted ? w : 1;
+        }
+        return new ColorSampler(weights);
+    }
+
+    // The weights are indexed by color
+    public ColorSampler(double[] weights) {
+        int n = 0;
+        double sum = 0;
+        for( double w : weights) {
+            if( !(w >= 0) || Double.isInfinite(w))
+                throw new IllegalArgumentException("Bad weight: " + w);
+            if( w > 0) {
+                ++n;
+                sum += w;
+            }
+        }
+        if( n == 0) throw new IllegalArgumentException("No marble colors");
+        color = new int[n];
+        alias = new int[n];
+        threshold = new long[n];
+
+        // Scale the weights so that the columns are each 1 high, and
+        // sort them into those that fall short and those that don't
+        double[] p = new double[n];
+        int[] small = new int[n], large = new int[n];
+        int nsmall = 0, nlarge = 0;
+        for( int c = 0, k = 0; c < weights.length; ++c) {
+            if( weights[c] <= 0) continue;
+            color[k] = c;
+            p[k] = weights[c] * n / sum;
+            if( p[k] < 1) small[nsmall++] = k;
+            else large[nlarge++] = k;
+            ++k;
+        }
+
+        // Top up each short column with a color that has some to spare
+        while( nsmall > 0 && nlarge > 0) {
+            int s = small[--nsmall], l = large[--nlarge];
+            threshold[s] = Math.round(p[s] * one);
+            alias[s] = color[l];
+            p[l] -= 1 - p[s];
+            if( p[l] < 1) small[nsmall++] = l;
+            else large[nlarge++] = l;
+        }
+
+        // What is left is full, give or take rounding
+        while( nlarge > 0) threshold[large[--nlarge]] = one;
+        while( nsmall > 0) threshold[small[--nsmall]] = one;
+    }
+
+    public int next(Rng random) {
+        int i = random.nextInt(color.length);
+        return (random.nextLong() >>> 33) < threshold[i] ? color[i] : alias[i];
+    }
+}
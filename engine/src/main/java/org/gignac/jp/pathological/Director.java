@@ -16,28 +16,23 @@
  */
 package org.gignac.jp.pathological;
 
-class Director extends TunnelTile
+final class Director extends TunnelTile
 {
-    private final int direction;
+    final int direction;
 
     public Director(Board board, int paths, int direction)
     {
-        super(board, paths);
+        super(board, paths, DIRECTOR);
         this.direction = direction;
-        board.sc.cache(R.drawable.misc);
+        exits = exits_toward(direction);
     }
 
     @Override
-    protected void draw_cap(Blitter surface) {
-        surface.blit( R.drawable.misc,
-            38*direction, 204, 38, 38, left+27, top+27);
-    }
-
-    @Override
-    public void affect_marble(Board board, Marble marble, int x, int y) {
+    public void affect_marble(Board board, int marble, int x, int y) {
         if(x == tile_size/2 && y == tile_size/2) {
-            marble.direction = direction;
-            board.gr.play_sound( GameResources.direct_marble);
+            final int[] dirs = board.marbles.direction;
+            dirs[marble] = exit(dirs[marble]);
+            board.sounds.play_sound( Sounds.direct_marble);
         }
     }
 }
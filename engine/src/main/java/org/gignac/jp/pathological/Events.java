@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// What happens in a game, for the threads other than the one running
+// it: sounds to play, changes to the score, and so on.  The simulation
+// writes each event into a preallocated ring, and any number of Readers
+// drain it at their own pace, each with a cursor of its own.  Nothing
+// is locked or allocated, and the simulation never waits for a reader;
+// a reader that falls a whole ring behind skips what it missed.
+//
+// Each slot holds an event as two longs, and a stamp: the number of the
+// event plus one, or zero while the slot is being rewritten.  A reader
+// checks the stamp before and after reading the event, so it can tell
+// if the writer got to the slot in between.  All of these are read and
+// written through an AtomicLongArray, so the reads of the event can't
+// be moved to either side of the reads of the stamp.
+//
+// Attach the ring to a board with Board.send_events().  As a Sounds, it
+// turns each sound the board plays into a SOUND event.
+final class Events
+    implements Sounds
+{
+    public static final int SOUND = 0;            // The Sounds id
+    public static final int SCORE = 1;            // The points scored
+    public static final int WHEEL_COMPLETED = 2;  // The wheel's tile index
+    public static final int MARBLE_LOST = 3;      // The marble's color
+    public static final int BOARD_TIMER = 4;      // Seconds left
+    public static final int LAUNCH_TIMER = 5;     // Seconds left
+    private static final int size = 256;         // A power of two
+
+    private final AtomicLongArray stamp = new AtomicLongArray(size);
+    private final AtomicLongArray slots = new AtomicLongArray(size * 2);
+    private volatile long written;   // Events written so far
+    int now;                         // The tick to stamp events with
+
+    public interface Listener {
+        void event(int type, int value, int tick);
+    }
+
+    // Called only by the thread running the game
+    public void add(int type, int value) {
+        long w = written;
+        int i = (int)w & (size - 1);
+        stamp.lazySet(i, 0);
+        slots.lazySet(i*2, ((long)type << 32) | (value & 0xffffffffL));
+        slots.lazySet(i*2 + 1, now);
+        stamp.lazySet(i, w + 1);
+        written = w + 1;
+    }
+
+    public void play_sound(int id) {
+        add(SOUND, id);
+    }
+
+    public Reader reader() {
+        return new Reader();
+    }
+
+    public final class Reader
+    {
+        private long next;
+        public int missed;      // Events skipped for falling behind
+
+        private Reader() {
+            next = written;
+        }
+
+        // Forget any events not yet read
+        public void skip() {
+            next = written;
+        }
+
+        // Passes each new event to the listener, in order, and returns
+        // the number passed
+        public int drain(Listener listener) {
+            int n = 0;
+            long w = written;
+            while( next < w) {
+                // The writer may be overwriting the oldest slot already
+                if( w - next >= size) {
+                    missed += (int)(w - size + 1 - next);
+                    next = w - size + 1;
+                }
+                int i = (int)next & (size - 1);
+
+                // The event is only good if its slot is stamped with it
+                // both before and after it is read; otherwise the writer
+                // has started on the slot again
+                if( stamp.get(i) == next + 1) {
+                    long tv = slots.get(i*2);
+                    int k = (int)slots.get(i*2 + 1);
+                    if( stamp.get(i) == next + 1) {
+                        ++next;
+                        ++n;
+                        listener.event((int)(tv >> 32), (int)tv, k);
+                        continue;
+                    }
+                }
+                w = written;
+            }
+            return n;
+        }
+    }
+}
@@ -16,32 +16,27 @@
  */
 package org.gignac.jp.pathological;
 
-class Filter extends TunnelTile
+final class Filter extends TunnelTile
 {
-    private final int color;
+    final int color;
 
     public Filter(Board board, int paths, int color) {
-        super(board, paths);
-        board.sc.cache(R.drawable.misc);
+        super(board, paths, FILTER);
         this.color = color;
     }
 
-    protected void draw_cap(Blitter surface) {
-        surface.blit( R.drawable.misc,
-            152+color*38, 204, 38, 38, left+27, top+27);
-    }
-
-    public void affect_marble(Board board, Marble marble, int x, int y)
+    public void affect_marble(Board board, int marble, int x, int y)
     {
-        GameResources gr = board.gr;
+        Sounds sounds = board.sounds;
         if( x == tile_size/2 && y == tile_size/2) {
             // If the color is wrong, bounce the marble
-            if( marble.color != color && marble.color != 8) {
-                marble.direction = marble.direction ^ 2;
-                gr.play_sound( GameResources.ping);
+            final Marbles marbles = board.marbles;
+            if( marbles.color[marble] != color && marbles.color[marble] != 8) {
+                marbles.direction[marble] = marbles.direction[marble] ^ 2;
+                sounds.play_sound( Sounds.ping);
             } else {
                 super.affect_marble( board, marble, x, y);
-                gr.play_sound( GameResources.filter_admit);
+                sounds.play_sound( Sounds.filter_admit);
             }
         }
     }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Passes the newest Snapshot of the board from the simulation thread to
+// the thread that draws it, without locks and without allocating.
+// There are three buffers: the writer fills one, the reader reads
+// another, and the third holds the newest finished snapshot.  Finishing
+// a snapshot swaps it with the third buffer, and so does taking one, so
+// neither thread ever waits for the other; a snapshot that is replaced
+// before it is taken is just skipped.
+final class Handoff
+{
+    private static final int fresh = 4;     // Set when middle is unread
+    private final Snapshot[] buffers =
+        { new Snapshot(), new Snapshot(), new Snapshot() };
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;       // The writer's
+    private int front = 2;      // The reader's
+
+    // For the writer to fill, then publish()
+    public Snapshot back() {
+        return buffers[back];
+    }
+
+    public void publish() {
+        back = middle.getAndSet(back | fresh) & 3;
+    }
+
+    // The newest snapshot, ready to read from the start, or null if
+    // there has been none since the last call.  It stays the reader's
+    // until the next call.
+    public Snapshot take() {
+        if((middle.get() & fresh) == 0) return null;
+        front = middle.getAndSet(front) & 3;
+        Snapshot s = buffers[front];
+        s.pos = 0;
+        return s;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Hints worked out ahead of time, by solving each level offline.  For
+// each position that a solution passed through, the book holds the
+// input the solution made there, or Hints.WAIT if it made none, keyed
+// by the level and Board.signature().  A book is only good for the
+// engine that it was made with, so it records Board.engine_version, and
+// a book made with any other is turned down.
+//
+// The layout is flat and big-endian, so that the book can be read in
+// place from a memory-mapped asset:
+//   int     magic
+//   int     Board.engine_version
+//   int     the number of levels
+//   int[]   the index of each level's first entry, and then the total
+//           number of entries, padded to a multiple of eight bytes
+//   long[]  the signature of each entry, sorted within each level
+//   byte[]  the input for each entry, with 0xff for Hints.WAIT
+final class HintBook
+{
+    private static final int magic = 0x50484232;   // "PHB2"
+    private static final int header = 12;
+    private static final int wait = 0xff;
+
+    private final ByteBuffer buf;
+    private final int levels;
+    private final int signatures;   // Where the signatures start
+    private final int inputs;       // Where the inputs start
+
+    public HintBook(ByteBuffer buf) {
+        if( buf.getInt(0) != magic)
+            throw new IllegalArgumentException("Not a hint book");
+        if( buf.getInt(4) != Board.engine_version)
+            throw new IllegalArgumentException("Hint book for another engine");
+        this.buf = buf;
+        levels = buf.getInt(8);
+        signatures = (header + (levels + 1) * 4 + 7) & ~7;
+        inputs = signatures + entry(levels) * 8;
+    }
+
+    private int entry(int i) {
+        return buf.getInt(header + i * 4);
+    }
+
+    public boolean has(int level) {
+        return level >= 0 && level < levels && entry(level) < entry(level+1);
+    }
+
+    // The input to make at the given position, or Hints.NONE if the
+    // book doesn't know
+    public int lookup(int level, long signature) {
+        if( level < 0 || level >= levels) return Hints.NONE;
+        int lo = entry(level), hi = entry(level+1) - 1;
+        while( lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long s = buf.getLong(signatures + mid * 8);
+            if( s < signature) lo = mid + 1;
+            else if( s > signature) hi = mid - 1;
+            else {
+                int input = buf.get(inputs + mid) & 0xff;
+                return input == wait ? Hints.WAIT : input;
+            }
+        }
+        return Hints.NONE;
+    }
+
+    // Lays out a book.  Each level's signatures and inputs are parallel
+    // arrays, which need not be sorted, but must not repeat a signature.
+    public static byte[] pack(long[][] signatures, int[][] inputs) {
+        int levels = signatures.length;
+        int total = 0;
+        for( long[] s : signatures) total += s.length;
+        int start = (header + (levels + 1) * 4 + 7) & ~7;
+        ByteBuffer buf = ByteBuffer.allocate(start + total * 9);
+        buf.putInt(magic);
+        buf.putInt(Board.engine_version);
+        buf.putInt(levels);
+        int entry = 0;
+        for( long[] s : signatures) {
+            buf.putInt(entry);
+            entry += s.length;
+        }
+        buf.putInt(entry);
+
+        entry = 0;
+        for( int level=0; level < levels; ++level) {
+            long[] s = signatures[level];
+            Integer[] order = new Integer[s.length];
+            for( int i=0; i < s.length; ++i) order[i] = i;
+            Arrays.sort(order, new SignatureOrder(s));
+            for( int i=0; i < s.length; ++i) {
+                int j = order[i];
+                int input = inputs[level][j];
+                buf.putLong(start + (entry + i) * 8, s[j]);
+                buf.put(start + total * 8 + entry + i,
+                    (byte)(input == Hints.WAIT ? wait : input));
+            }
+            entry += s.length;
+        }
+        return buf.array();
+    }
+
+    private static final class SignatureOrder implements Comparator<Integer> {
+        private final long[] s;
+
+        SignatureOrder(long[] s) {
+            this.s = s;
+        }
+
+        public int compare(Integer a, Integer b) {
+            return s[a] < s[b] ? -1 : s[a] > s[b] ? 1 : 0;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Suggests the most promising input - a wheel to turn or a marble to
+// flick out - for the game in progress.  The game hands over its board
+// with follow() every tick; whenever the choices open to the player
+// change, the search starts over from the new position.  It plays out
+// many random futures after each possible input, and after doing
+// nothing, and best() is the input whose futures have gone best so far.
+// The answer is refined for as long as the position stands.  Positions
+// that the HintBook knows are answered from it without searching.
+//
+// The search runs on its own thread at low priority, from start() until
+// stop(), in bursts of at most a share of every frame of the game, so
+// that it never holds up the game loop even on a single core.  It drops
+// a rollout as soon as it sees the position change.  The two threads
+// share no lock: positions go to the search through a Handoff, and the
+// answer comes back packed with the generation of the position that it
+// is for, so an answer to an old position can't overwrite a new one.
+final class Hints implements Runnable
+{
+    public static final int NONE = -1;     // No answer yet
+    public static final int WAIT = -2;     // Doing nothing looks best
+    public static final int share = 5;     // The search takes 1/share
+    private static final int horizon = 10 * Board.frames_per_sec;
+    private static final int think_ticks = 15;  // How often rollouts act
+    private static final int enough = 256;      // Rollouts per input
+    private static final int check_ticks = 32;  // How often to look for
+                                                // a change of position
+
+    private final Board board;  // The hint thread's own copy
+    private final HintBook book;
+    private final Handoff positions = new Handoff();
+    // The generation, bumped when the position changes, in the high
+    // half, and the best input for that position in the low half
+    private final AtomicLong answer = new AtomicLong(NONE & 0xffffffffL);
+    private volatile boolean stopped;
+    private volatile Thread thread;
+    private int choices;                // The game's, when last followed
+    private volatile long frame_ns =    // The game's tick period
+        1000000000L / Board.frames_per_sec;
+
+    // The board must be for the same level as the game, and should be
+    // silent, since the search plays it in place of the game's own.
+    public Hints(Board board, HintBook book) {
+        this.board = board;
+        this.book = book;
+    }
+
+    // A Hints runs just once; make a new one to start over
+    public void start() {
+        Thread thread = new Thread(this, "hints");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setDaemon(true);
+        this.thread = thread;
+        thread.start();
+    }
+
+    public void stop() {
+        stopped = true;
+        long a;
+        do {
+            a = answer.get();
+        } while( !answer.compareAndSet(a, pack(generation(a) + 1, NONE)));
+        LockSupport.unpark(thread);
+    }
+
+    // Tile index * 5 + Board.input() action, or WAIT or NONE
+    public int best() {
+        return (int)answer.get();
+    }
+
+    private static long pack(int generation, int best) {
+        return ((long)generation << 32) | (best & 0xffffffffL);
+    }
+
+    private static int generation(long answer) {
+        return (int)(answer >>> 32);
+    }
+
+    private int generation() {
+        return generation(answer.get());
+    }
+
+    // Called by the game after every update
+    public void follow(Board game) {
+        if( stopped) return;
+        frame_ns = 1000000000L / game.tick_rate;
+        int c = Solver.choices(game);
+        if( c == choices && generation() != 0) return;
+        choices = c;
+        int known = book == null ? NONE :
+            book.lookup(game.level, game.signature());
+        if( known == NONE) {
+            game.save(positions.back());
+            positions.publish();
+        }
+        answer.set(pack(generation() + 1, known));
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void run() {
+        Snapshot root = null;
+        Rng rng = new Rng(System.nanoTime());
+        int[] inputs = new int[board.wheels.length * 5 + 1];
+        int[] rollout_inputs = new int[board.wheels.length * 5];
+        long[] totals = new long[inputs.length];
+        int[] counts = new int[inputs.length];
+        int n = 0, next = 0, seen = 0;
+
+        while( true) {
+            while( !stopped && generation() == seen &&
+                (n == 0 || counts[n-1] >= enough)) {
+                LockSupport.park(this);
+                if( Thread.interrupted()) return;
+            }
+            if( stopped) return;
+            long a = answer.get();
+            if( generation(a) != seen) {
+                seen = generation(a);
+                n = 0;
+
+                // The book answered it, so there is nothing to search
+                if( (int)a != NONE) continue;
+
+                // Nothing newer means the newest is the one already taken
+                Snapshot s = positions.take();
+                if( s != null) root = s;
+                if( root == null) continue;
+                board.restore(root);
+                n = Solver.inputs(board, inputs);
+                inputs[n++] = WAIT;
+                for( int i=0; i < n; ++i) {
+                    totals[i] = 0;
+                    counts[i] = 0;
+                }
+                next = 0;
+            }
+
+            // Work for a burst, then give the rest of the frame back
+            long frame = frame_ns, burst = frame / share;
+            long end = System.nanoTime() + burst;
+            while( generation() == seen && counts[n-1] < enough &&
+                System.nanoTime() < end) {
+                board.restore(root);
+                int value = rollout(inputs[next], rng, rollout_inputs, seen);
+                if( generation() != seen) break;
+                totals[next] += value;
+                if( ++counts[next] >= 4)
+                    publish(inputs, totals, counts, n, seen);
+                if( ++next == n) next = 0;
+            }
+            try {
+                long rest = frame - burst;
+                Thread.sleep(rest / 1000000, (int)(rest % 1000000));
+            } catch(InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void publish(int[] inputs, long[] totals,
+                         int[] counts, int n, int seen) {
+        long a = answer.get();
+        if( generation(a) != seen) return;
+        int b = NONE;
+        double most = Double.NEGATIVE_INFINITY;
+        for( int i=0; i < n; ++i) {
+            if( counts[i] < 4) continue;
+            double mean = (double)totals[i] / counts[i];
+            if( mean > most) {
+                most = mean;
+                b = inputs[i];
+            }
+        }
+        answer.compareAndSet(a, pack(seen, b));
+    }
+
+    // Plays out one future from the board after the given input, with
+    // a stand-in player that acts at random, and scores how it went
+    private int rollout(int input, Rng rng, int[] inputs, int seen) {
+        if( input != WAIT) play(input);
+        int status = Board.INCOMPLETE;
+        for( int t=1; t <= horizon && status == Board.INCOMPLETE; ++t) {
+            status = board.update();
+            if( t % check_ticks == 0 && generation() != seen) break;
+            if( t % think_ticks == 0 && rng.nextInt(2) == 0) {
+                int n = Solver.inputs(board, inputs);
+                if( n > 0) play(inputs[rng.nextInt(n)]);
+            }
+        }
+        int value = Solver.heuristic(board);
+        if( status == Board.COMPLETE) value += 10000;
+        else if( status != Board.INCOMPLETE) value -= 10000;
+        return value;
+    }
+
+    private void play(int input) {
+        int tile = input / 5;
+        board.input(tile % Board.horiz_tiles, tile / Board.horiz_tiles,
+            input % 5);
+    }
+}
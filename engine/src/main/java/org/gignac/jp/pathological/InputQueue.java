@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+// Touches on their way from the UI thread to the simulation thread.
+// While a pointer is down, where it went down is kept in primitive
+// arrays indexed by its id; when it comes up, the gesture is resolved
+// into the command a Replay would record (tile * 5 + action), and that
+// goes into a ring of primitive records with one writer and one reader.
+// So a touch takes no lock and allocates nothing, and the simulation
+// only ever sees whole commands, which it applies at the start of a
+// tick, in the order they were made.
+//
+// A flick needn't wait for the finger to lift, though.  As the pointer
+// moves, its velocity is tracked, and once it is past the flick
+// threshold, clearly in one direction and still heading that way, the
+// flick is committed there and then, and the touch makes nothing more,
+// even if the finger comes back to where it started before it lifts.
+//
+// The UI thread looks at the game's board_state and isPaused() to see
+// whether a touch counts for anything.  Both are volatile, so it sees
+// the game as the simulation thread left it; apply() checks again in
+// any case, since the level may end before a command gets there.
+//
+// For measuring latency, each command that is applied goes into a
+// second ring, going the other way, along with when it was applied and
+// on which tick.  The UI thread calls shown() once it has drawn a tick,
+// and the commands that tick reflects are taken off the ring and timed.
+final class InputQueue
+{
+    private static final int size = 64;          // A power of two
+    private static final int max_pointers = 16;  // Others are ignored
+    private static final float min_speed = 0.1f; // Board pixels per ms
+
+    // Only touched by the UI thread
+    private final boolean[] is_down = new boolean[max_pointers];
+    private final int[] down_x = new int[max_pointers];
+    private final int[] down_y = new int[max_pointers];
+    private final int[] last_x = new int[max_pointers];
+    private final int[] last_y = new int[max_pointers];
+    private final long[] last_time = new long[max_pointers];
+    private final float[] vx = new float[max_pointers];
+    private final float[] vy = new float[max_pointers];
+    private final int[] early = new int[max_pointers];  // Or -1
+
+    private final int[] code = new int[size];    // tile * 5 + action
+    private final long[] time = new long[size];  // Of the deciding event
+    private volatile int head;      // The next command to apply
+    private volatile int tail;      // Where the next command goes
+    public int dropped;             // Commands lost to a full queue
+
+    // The commands applied, for shown()
+    private final long[] applied_time = new long[size];  // The touch's
+    private final long[] applied_at = new long[size];    // Uptime
+    private final int[] applied_tick = new int[size];    // Board.ticks
+    private volatile int applied_head;
+    private volatile int applied_tail;
+
+    // Called on the UI thread, with the position in board coordinates
+    // and the time of the event
+    public void down(int pointer, int x, int y, long time) {
+        if( pointer < 0 || pointer >= max_pointers) return;
+        is_down[pointer] = true;
+        down_x[pointer] = last_x[pointer] = x;
+        down_y[pointer] = last_y[pointer] = y;
+        last_time[pointer] = time;
+        vx[pointer] = vy[pointer] = 0f;
+        early[pointer] = -1;
+    }
+
+    // Called on the UI thread for each sample of a moving pointer,
+    // historical ones included, in order
+    public void move(Board board, int pointer, int x, int y, long time) {
+        if( pointer < 0 || pointer >= max_pointers) return;
+        if( !is_down[pointer] || early[pointer] >= 0) return;
+
+        // Smooth the velocity a little, since samples come unevenly
+        long dt = time - last_time[pointer];
+        if( dt > 0) {
+            vx[pointer] = (vx[pointer] + (x - last_x[pointer]) / (float)dt) / 2;
+            vy[pointer] = (vy[pointer] + (y - last_y[pointer]) / (float)dt) / 2;
+        }
+        last_x[pointer] = x;
+        last_y[pointer] = y;
+        last_time[pointer] = time;
+
+        if( board.board_state != Board.INCOMPLETE || board.isPaused()) return;
+        int c = board.gesture(down_x[pointer], down_y[pointer], x, y);
+        if( c < 0 || c % 5 == Board.CLICK) return;
+
+        // Along and across the direction of the flick
+        int dir = c % 5;
+        int sign = (dir == 1 || dir == 2) ? 1 : -1;
+        int dx = x - down_x[pointer], dy = y - down_y[pointer];
+        int along = sign * ((dir & 1) != 0 ? dx : dy);
+        int across = Math.abs((dir & 1) != 0 ? dy : dx);
+        float speed = sign * ((dir & 1) != 0 ? vx[pointer] : vy[pointer]);
+        if( along < 2 * across || speed < min_speed) return;
+        early[pointer] = c;
+        add(c, time);
+    }
+
+    // Called on the UI thread, with the position in board coordinates
+    // and the time of the event.  Returns true if the board is paused
+    // and the gesture was a tap, in which case the caller should resume
+    // the game.
+    public boolean up(Board board, int pointer, int x, int y, long time) {
+        if( pointer < 0 || pointer >= max_pointers) return false;
+        if( !is_down[pointer]) return false;
+        is_down[pointer] = false;
+        if( board.board_state != Board.INCOMPLETE) return false;
+        int dx = down_x[pointer], dy = down_y[pointer];
+        if( board.isPaused()) return Board.is_tap(x - dx, y - dy);
+        int c = board.gesture(dx, dy, x, y);
+        if( c >= 0 && early[pointer] < 0) add(c, time);
+        return false;
+    }
+
+    private void add(int code, long time) {
+        int t = tail;
+        if( t - head == size) {
+            ++dropped;
+            return;
+        }
+        int i = t & (size - 1);
+        this.code[i] = code;
+        this.time[i] = time;
+        tail = t + 1;
+    }
+
+    // Called on the simulation thread at the start of a tick
+    public void apply(Board board) {
+        int h = head, t = tail;
+        for( ; h != t; ++h) {
+            int i = h & (size - 1);
+            int c = code[i];
+            int tile = c / 5;
+            if( board.board_state != Board.INCOMPLETE) continue;
+            board.input(tile % Board.horiz_tiles,
+                tile / Board.horiz_tiles, c % 5);
+
+            // If nobody is reading them, the records just stop
+            int at = applied_tail;
+            if( at - applied_head == size) continue;
+            int j = at & (size - 1);
+            applied_time[j] = time[i];
+            applied_at[j] = board.clock.uptimeMillis();
+            applied_tick[j] = board.ticks;
+            applied_tail = at + 1;
+        }
+        head = h;
+    }
+
+    // Called on the UI thread when it has drawn the board as it was
+    // after the given number of ticks, at the given uptime.  Adds the
+    // latency of each command newly reflected there, from the touch
+    // to the tick that applied it and to the drawing.
+    public void shown(int ticks, long now, Latency to_tick, Latency to_draw)
+    {
+        int h = applied_head, t = applied_tail;
+        for( ; h != t; ++h) {
+            int j = h & (size - 1);
+            if( applied_tick[j] >= ticks) break;
+            to_tick.add(applied_at[j] - applied_time[j]);
+            to_draw.add(now - applied_time[j]);
+        }
+        applied_head = h;
+    }
+}
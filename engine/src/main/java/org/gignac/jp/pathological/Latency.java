@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+// A histogram of latencies in whole milliseconds, from which to report
+// the percentiles over a session.  Adding one is an increment in a
+// preallocated array, so it can be done on every frame.  Latencies
+// beyond the last bucket are counted in it.
+final class Latency
+{
+    private static final int max_ms = 1000;
+    private final int[] counts = new int[max_ms + 1];
+    private int n;
+    public final String name;
+
+    public Latency(String name) {
+        this.name = name;
+    }
+
+    public void add(long ms) {
+        if( ms < 0) ms = 0;
+        ++counts[(int)Math.min(ms, max_ms)];
+        ++n;
+    }
+
+    public int count() {
+        return n;
+    }
+
+    // The least latency that pct percent of those added are within
+    public int percentile(int pct) {
+        long need = ((long)n * pct + 99) / 100;
+        int sum = 0;
+        for( int ms = 0; ms < max_ms; ++ms) {
+            sum += counts[ms];
+            if( sum >= need) return ms;
+        }
+        return max_ms;
+    }
+
+    public String report() {
+        return name + ": " + n + " samples, p50 " + percentile(50) +
+            " ms, p95 " + percentile(95) + " ms, p99 " + percentile(99) +
+            " ms";
+    }
+}
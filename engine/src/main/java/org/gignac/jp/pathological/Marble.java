@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+class Marble {
+    public static final int marble_size = 28;
+    public static final int marble_speed = 4;  // Pixels per Board step
+    // Positions are kept to 1/65536 of a pixel, so that the marbles can
+    // move less than a whole pixel on a tick; see Board.set_tick_rate()
+    public static final int frac_bits = 16;
+    public static final int dx[] = {0,1,0,-1};
+    public static final int dy[] = {-1,0,1,0};
+
+    // Up to four marble colors can be packed into an int, one signed
+    // byte each, with the first in the low byte.  Negative values are
+    // free for use as placeholders.
+    public static int unpack(int packed, int i) {
+        return (byte)(packed >> (i << 3));
+    }
+
+    public static int pack(int packed, int i, int color) {
+        int shift = i << 3;
+        return (packed & ~(0xff << shift)) | ((color & 0xff) << shift);
+    }
+
+    // Four of the same color
+    public static int repeat(int color) {
+        return (color & 0xff) * 0x01010101;
+    }
+
+    // Sets the high bit of each byte of v that is zero, and clears
+    // all of the other bits
+    public static int zero_bytes(int v) {
+        return ~(((v & 0x7f7f7f7f) + 0x7f7f7f7f) | v | 0x7f7f7f7f);
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.util.Arrays;
+
+// The active marbles, stored as parallel arrays indexed by slot.  A
+// marble keeps its slot for as long as it is active, so tiles can keep
+// track of a marble by its slot number.  Released slots are compacted
+// out of the launch order during the next update and then reused, so
+// once the pool has reached its high-water mark play allocates nothing.
+//
+// Each marble's position is a whole pixel plus a fraction of one in the
+// direction that it is travelling.  It also keeps the distance to the
+// next point where the board might affect it (see Board.ahead), so a
+// marble on a plain stretch of track is just moved along.  The marbles
+// all move at the same speed, so distance stands for time: they are
+// moved together, and stop wherever one of them reaches such a point,
+// so the board always sees a marble at the exact pixel, and sees what
+// happens in the order that it happens, however the time is divided
+// into ticks.  The fraction is zero at those points, and whenever the
+// marble changes direction.
+class Marbles
+{
+    private static final int initial_capacity = 16;
+    private static final int frac_mask = (1 << Marble.frac_bits) - 1;
+    private static final int step = Marble.marble_speed << Marble.frac_bits;
+    public int[] color;
+    public int[] left;
+    public int[] top;
+    public int[] direction;
+    public int[] frac;
+    private int[] ahead;
+    private boolean[] alive;
+    private int[] order;   // Slots in the order they were added
+    private int norder;
+    private int[] free;
+    private int nfree;
+    private int count;
+
+    public Marbles() {
+        color = new int[initial_capacity];
+        left = new int[initial_capacity];
+        top = new int[initial_capacity];
+        direction = new int[initial_capacity];
+        frac = new int[initial_capacity];
+        ahead = new int[initial_capacity];
+        alive = new boolean[initial_capacity];
+        order = new int[initial_capacity];
+        free = new int[initial_capacity];
+        for( int i=0; i < initial_capacity; ++i)
+            free[nfree++] = initial_capacity-1-i;
+    }
+
+    // Make room for at least n marbles without further allocation
+    public void reserve(int n) {
+        while( color.length < n) grow(color.length * 2);
+        if( order.length < n) order = Arrays.copyOf(order, n);
+    }
+
+    // Only the marbles in the launch order and the free list matter;
+    // every other slot is dead
+    public void save(Snapshot s) {
+        s.reserve(3 + norder * 8 + nfree);
+        s.put(color.length);
+        s.put(norder);
+        for( int i=0; i < norder; ++i) {
+            int m = order[i];
+            s.put(m);
+            s.put(alive[m] ? 1 : 0);
+            s.put(color[m]);
+            s.put(left[m]);
+            s.put(top[m]);
+            s.put(direction[m]);
+            s.put(frac[m]);
+            s.put(ahead[m]);
+        }
+        s.put(nfree);
+        s.put(free, nfree);
+    }
+
+    public void restore(Snapshot s) {
+        // Use the same capacity, so that the pool grows at the same
+        // point and hands out the same slots as before
+        int capacity = s.get();
+        if( capacity != color.length) resize(capacity);
+        Arrays.fill(alive, false);
+        norder = s.get();
+        if( order.length < norder) order = Arrays.copyOf(order, norder);
+        count = 0;
+        for( int i=0; i < norder; ++i) {
+            int m = s.get();
+            order[i] = m;
+            alive[m] = s.get() != 0;
+            color[m] = s.get();
+            left[m] = s.get();
+            top[m] = s.get();
+            direction[m] = s.get();
+            frac[m] = s.get();
+            ahead[m] = s.get();
+            if( alive[m]) ++count;
+        }
+        nfree = s.get();
+        s.get(free, nfree);
+    }
+
+    private void resize(int capacity) {
+        color = new int[capacity];
+        left = new int[capacity];
+        top = new int[capacity];
+        direction = new int[capacity];
+        frac = new int[capacity];
+        ahead = new int[capacity];
+        alive = new boolean[capacity];
+        free = new int[capacity];
+    }
+
+    private void grow(int newCapacity) {
+        int capacity = color.length;
+        color = Arrays.copyOf(color, newCapacity);
+        left = Arrays.copyOf(left, newCapacity);
+        top = Arrays.copyOf(top, newCapacity);
+        direction = Arrays.copyOf(direction, newCapacity);
+        frac = Arrays.copyOf(frac, newCapacity);
+        ahead = Arrays.copyOf(ahead, newCapacity);
+        alive = Arrays.copyOf(alive, newCapacity);
+        free = Arrays.copyOf(free, newCapacity);
+        for( int i=newCapacity-1; i >= capacity; --i)
+            free[nfree++] = i;
+    }
+
+    // Adds a marble centered at (cx,cy) and returns its slot
+    public int acquire(int color, int cx, int cy, int direction) {
+        if( nfree == 0) grow(this.color.length * 2);
+        int m = free[--nfree];
+        this.color[m] = color;
+        this.left[m] = cx-Marble.marble_size/2;
+        this.top[m] = cy-Marble.marble_size/2;
+        this.direction[m] = direction;
+        frac[m] = 0;
+        ahead[m] = step;
+        alive[m] = true;
+        if( norder == order.length)
+            order = Arrays.copyOf(order, norder * 2);
+        order[norder++] = m;
+        ++count;
+        return m;
+    }
+
+    public void release(int m) {
+        alive[m] = false;
+        --count;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // The marbles can be visited in order with at(0) .. at(span()-1),
+    // skipping any slots that are no longer alive.
+    public int span() {
+        return norder;
+    }
+
+    public int at(int i) {
+        return order[i];
+    }
+
+    public boolean isAlive(int m) {
+        return alive[m];
+    }
+
+    // Called when something other than the marble's own progress along
+    // the track moves it to a whole pixel or changes its direction.  It
+    // is looked at again a step further on.
+    public void wake(int m) {
+        frac[m] = 0;
+        ahead[m] = step;
+    }
+
+    // Moves the marbles the given distance along, letting the board
+    // affect each one at the points it reaches on the way.  Where several
+    // reach a point together, they are seen to in the order they were
+    // added.  Marbles added along the way start from where they were
+    // added, at that moment.
+    public void advance(Board board, int distance) {
+        while( true) {
+            int next = distance;
+            for( int r=0; r < norder; ++r) {
+                int m = order[r];
+                if( alive[m] && ahead[m] < next) next = ahead[m];
+            }
+            for( int r=0; r < norder; ++r) {
+                int m = order[r];
+                if( !alive[m]) continue;
+                move(m, next);
+                ahead[m] -= next;
+            }
+            distance -= next;
+            for( int r=0; r < norder; ++r) {
+                int m = order[r];
+                if( !alive[m] || ahead[m] != 0) continue;
+                board.affect_marble(m);
+                if( alive[m]) ahead[m] = board.ahead(m) << Marble.frac_bits;
+            }
+            if( distance == 0) return;
+        }
+    }
+
+    // Drops the marbles released since the last call from the order,
+    // and frees their slots for reuse.  The board calls this once a step,
+    // so that the slots are handed out the same way at any tick rate.
+    public void compact() {
+        int w = 0;
+        for( int r=0; r < norder; ++r) {
+            int m = order[r];
+            if( alive[m]) order[w++] = m;
+            else free[nfree++] = m;
+        }
+        norder = w;
+    }
+
+    private void move(int m, int distance) {
+        int f = frac[m] + distance;
+        int pixels = f >> Marble.frac_bits;
+        frac[m] = f & frac_mask;
+        left[m] += pixels * Marble.dx[direction[m]];
+        top[m] += pixels * Marble.dy[direction[m]];
+    }
+}
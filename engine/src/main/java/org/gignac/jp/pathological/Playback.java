@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+// Plays a Replay on a board loaded with the same level and seed.  The
+// board can be run forward at any speed, or sent straight to any tick.
+final class Playback
+{
+    private final Replay replay;
+    public final Board board;
+    private final Snapshot snapshot;
+    private int next;   // The next input to make
+
+    public Playback(Replay replay, Board board) {
+        if( board.level != replay.level || board.seed != replay.seed)
+            throw new IllegalArgumentException(
+                "The board doesn't match the replay");
+        this.replay = replay;
+        this.board = board;
+        board.set_tick_rate(replay.tick_rate);
+        snapshot = new Snapshot();
+        restore(0);
+    }
+
+    public int tick() {
+        return board.ticks;
+    }
+
+    public boolean finished() {
+        return board.ticks >= replay.length();
+    }
+
+    // Puts the board in the state it was in after the given number of
+    // ticks.  Going back, or past a keyframe, restores the keyframe.
+    public void seek(int tick) {
+        int k = Math.max(replay.keyframe_before(tick), 0);
+        if( tick < board.ticks || replay.keyframe_tick(k) > board.ticks)
+            restore(k);
+        advance(tick - board.ticks);
+    }
+
+    // Runs the board for up to the given number of ticks, making the
+    // recorded inputs along the way.  Stops early if the game ends.
+    public int advance(int ticks) {
+        int status = Board.INCOMPLETE;
+        for( int i=0; i < ticks && !finished(); ++i) {
+            while( next < replay.inputs() &&
+                replay.input_tick(next) == board.ticks) {
+                int tile = replay.input_tile(next);
+                board.input(tile % Board.horiz_tiles,
+                    tile / Board.horiz_tiles, replay.input_action(next));
+                ++next;
+            }
+            status = board.update();
+        }
+        return status;
+    }
+
+    private void restore(int k) {
+        replay.load_keyframe(k, snapshot);
+        board.restore(snapshot);
+        next = replay.first_input(board.ticks);
+    }
+}
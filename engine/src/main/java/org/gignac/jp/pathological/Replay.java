@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.io.IOException;
+import java.util.Arrays;
+
+// A recording of a game: the level and seed, and each tap or flick
+// that the player made along with the tick on which it was made.
+// Every so often the whole board is saved as a keyframe, so that
+// playback can seek by restoring the nearest keyframe and simulating
+// from there instead of from the beginning.
+//
+// The encoding is a header followed by a list of records.  Numbers are
+// varints: seven bits per byte, low bits first, with the high bit set
+// on all but the last byte.  Each record starts with a varint holding
+// the ticks since the previous record, shifted left to make room for
+// the record type:
+//   INPUT     one byte, the tile index * 5 + the Board.input() action
+//   KEYFRAME  the number of ints in the Snapshot, then each int with
+//             its sign bit moved to the bottom (zigzag encoding)
+//   END       the game ended on this tick
+//   RATE      the ticks per second, if not Board.frames_per_sec; see
+//             Board.set_tick_rate()
+final class Replay
+{
+    public static final int keyframe_secs = 30;    // Of sim-time
+    private static final int magic = 0x50524c32;   // "PRL2"
+    private static final int INPUT = 0;
+    private static final int KEYFRAME = 1;
+    private static final int END = 2;
+    private static final int RATE = 3;
+
+    public final int level;
+    public final long seed;
+    public int tick_rate = Board.frames_per_sec;
+    private byte[] data;
+    private int size;
+    private int last_tick;
+    private int end_tick;
+
+    // Where to find the inputs and keyframes, in order
+    private int[] input_ticks;
+    private int[] input_codes;
+    private int ninputs;
+    private int[] key_ticks;
+    private int[] key_offsets;
+    private int nkeys;
+
+    private Replay(int level, long seed, byte[] data, int size) {
+        this.level = level;
+        this.seed = seed;
+        this.data = data;
+        this.size = size;
+        end_tick = -1;
+        input_ticks = new int[64];
+        input_codes = new int[64];
+        key_ticks = new int[16];
+        key_offsets = new int[16];
+    }
+
+    // An empty recording; see Board.record()
+    public Replay(int level, long seed) {
+        this(level, seed, new byte[1024], 0);
+        write_int(magic);
+        write_varint(level);
+        write_int((int)seed);
+        write_int((int)(seed >>> 32));
+    }
+
+    public static Replay read(byte[] bytes) throws IOException {
+        Reader r = new Reader(bytes);
+        if( r.read_int() != magic) throw new IOException("Not a replay");
+        int level = r.read_varint();
+        long seed = r.read_int() & 0xffffffffL;
+        seed |= (long)r.read_int() << 32;
+        Replay replay = new Replay(level, seed, bytes, bytes.length);
+
+        // Index the records
+        int tick = 0;
+        while( r.pos < bytes.length) {
+            int head = r.read_varint();
+            tick += head >>> 2;
+            switch( head & 3) {
+            case INPUT:
+                replay.add_input(tick, r.read_byte());
+                break;
+            case KEYFRAME:
+                replay.add_keyframe(tick, r.pos);
+                for( int n = r.read_varint(); n > 0; --n) r.read_varint();
+                break;
+            case END:
+                replay.end_tick = tick;
+                break;
+            case RATE:
+                replay.tick_rate = r.read_varint();
+                if( replay.tick_rate <= 0)
+                    throw new IOException("Bad replay tick rate");
+                break;
+            }
+        }
+        replay.last_tick = tick;
+        return replay;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    // The number of ticks recorded
+    public int length() {
+        return end_tick >= 0 ? end_tick : last_tick;
+    }
+
+    public void input(int tick, int tile, int action) {
+        int code = tile * 5 + action;
+        write_head(tick, INPUT);
+        write_byte(code);
+        add_input(tick, code);
+    }
+
+    public void keyframe(int tick, Snapshot s) {
+        write_head(tick, KEYFRAME);
+        add_keyframe(tick, size);
+        write_varint(s.size);
+        for( int i=0; i < s.size; ++i) {
+            int v = s.data[i];
+            write_varint((v << 1) ^ (v >> 31));
+        }
+    }
+
+    public void tick_rate(int tick, int hz) {
+        write_head(tick, RATE);
+        write_varint(hz);
+        tick_rate = hz;
+    }
+
+    public void end(int tick) {
+        write_head(tick, END);
+        end_tick = tick;
+    }
+
+    public int inputs() {
+        return ninputs;
+    }
+
+    public int input_tick(int i) {
+        return input_ticks[i];
+    }
+
+    public int input_tile(int i) {
+        return input_codes[i] / 5;
+    }
+
+    public int input_action(int i) {
+        return input_codes[i] % 5;
+    }
+
+    // The first input made on or after the given tick
+    public int first_input(int tick) {
+        int lo = 0, hi = ninputs;
+        while( lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if( input_ticks[mid] < tick) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // The last keyframe saved on or before the given tick, or -1
+    public int keyframe_before(int tick) {
+        int lo = 0, hi = nkeys;
+        while( lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if( key_ticks[mid] <= tick) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo - 1;
+    }
+
+    public int keyframe_tick(int k) {
+        return key_ticks[k];
+    }
+
+    public void load_keyframe(int k, Snapshot s) {
+        Reader r = new Reader(data);
+        r.pos = key_offsets[k];
+        s.clear();
+        try {
+            for( int n = r.read_varint(); n > 0; --n) {
+                int v = r.read_varint();
+                s.put((v >>> 1) ^ -(v & 1));
+            }
+        } catch(IOException e) {
+            // Already checked by read()
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void add_input(int tick, int code) {
+        if( ninputs == input_ticks.length) {
+            input_ticks = Arrays.copyOf(input_ticks, ninputs * 2);
+            input_codes = Arrays.copyOf(input_codes, ninputs * 2);
+        }
+        input_ticks[ninputs] = tick;
+        input_codes[ninputs] = code;
+        ++ninputs;
+    }
+
+    private void add_keyframe(int tick, int offset) {
+        if( nkeys == key_ticks.length) {
+            key_ticks = Arrays.copyOf(key_ticks, nkeys * 2);
+            key_offsets = Arrays.copyOf(key_offsets, nkeys * 2);
+        }
+        key_ticks[nkeys] = tick;
+        key_offsets[nkeys] = offset;
+        ++nkeys;
+    }
+
+    private void write_head(int tick, int type) {
+        write_varint(((tick - last_tick) << 2) | type);
+        last_tick = tick;
+    }
+
+    private void write_byte(int b) {
+        if( size == data.length) data = Arrays.copyOf(data, size * 2);
+        data[size++] = (byte)b;
+    }
+
+    private void write_int(int v) {
+        for( int i=0; i < 4; ++i) write_byte(v >>> (i * 8));
+    }
+
+    private void write_varint(int v) {
+        while((v & ~0x7f) != 0) {
+            write_byte((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        write_byte(v);
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        int pos;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int read_byte() throws IOException {
+            if( pos == data.length) throw new IOException("Truncated replay");
+            return data[pos++] & 0xff;
+        }
+
+        int read_int() throws IOException {
+            int v = 0;
+            for( int i=0; i < 4; ++i) v |= read_byte() << (i * 8);
+            return v;
+        }
+
+        int read_varint() throws IOException {
+            int v = 0;
+            for( int shift=0; shift < 35; shift += 7) {
+                int b = read_byte();
+                v |= (b & 0x7f) << shift;
+                if( b < 0x80) return v;
+            }
+            throw new IOException("Bad varint in replay");
+        }
+    }
+}
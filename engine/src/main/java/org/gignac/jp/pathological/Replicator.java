@@ -16,7 +16,7 @@
  */
 package org.gignac.jp.pathological;
 
-class Replicator extends TunnelTile
+final class Replicator extends TunnelTile
 {
     private final int count;
     private int[] pending_col;
@@ -28,9 +28,8 @@ class Replicator extends TunnelTile
 
     public Replicator(Board board, int paths, int count)
     {
-        super(board, paths);
+        super(board, paths, REPLICATOR);
         this.count = count;
-        board.sc.cache(R.drawable.misc);
         pending_col = new int[10];
         pending_dir = new int[10];
         pending_count = new int[10];
@@ -39,12 +38,7 @@ class Replicator extends TunnelTile
     }
 
     @Override
-    protected void draw_cap(Blitter surface) {
-        surface.blit( R.drawable.misc, 380, 280, 38, 38, left+27, top+27);
-    }
-
-    @Override
-    public void update(Board board)
+    public boolean update(Board board)
     {
         int i=0;
         while( i < npending) {
@@ -56,14 +50,13 @@ class Replicator extends TunnelTile
                 if( board.marbles.size() >= board.live_marbles_limit) {
                     // Clear the pending list
                     npending = 0;
-                    return;
+                    return false;
                 }
 
                 // Add the new marble
-                board.activateMarble( new Marble(
-                        pending_col[i], left + tile_size/2,
-                    top + tile_size/2, pending_dir[i]));
-                board.gr.play_sound( GameResources.replicator);
+                board.activateMarble( pending_col[i], left + tile_size/2,
+                    top + tile_size/2, pending_dir[i]);
+                board.sounds.play_sound( Sounds.replicator);
 
                 pending_count[i] -= 1;
                 if( pending_count[i] <= 0) {
@@ -77,35 +70,64 @@ class Replicator extends TunnelTile
             }
             ++i;
         }
+        return npending > 0;
+    }
+
+    private void grow(int size) {
+        int[] new_col = new int[size];
+        int[] new_dir = new int[size];
+        int[] new_count = new int[size];
+        int[] new_delay = new int[size];
+        System.arraycopy(pending_col,0,new_col,0,npending);
+        System.arraycopy(pending_dir,0,new_dir,0,npending);
+        System.arraycopy(pending_count,0,new_count,0,npending);
+        System.arraycopy(pending_delay,0,new_delay,0,npending);
+        pending_col = new_col;
+        pending_dir = new_dir;
+        pending_count = new_count;
+        pending_delay = new_delay;
     }
 
     @Override
-    public void affect_marble(Board board, Marble marble, int x, int y)
+    public void save(Snapshot s) {
+        s.put(npending);
+        for( int i=0; i < npending; ++i) {
+            s.put(pending_col[i]);
+            s.put(pending_dir[i]);
+            s.put(pending_count[i]);
+            s.put(pending_delay[i]);
+        }
+    }
+
+    @Override
+    public void restore(Snapshot s) {
+        npending = 0;
+        int n = s.get();
+        if(pending_col.length < n) grow(n);
+        for( int i=0; i < n; ++i) {
+            pending_col[i] = s.get();
+            pending_dir[i] = s.get();
+            pending_count[i] = s.get();
+            pending_delay[i] = s.get();
+        }
+        npending = n;
+    }
+
+    @Override
+    public void affect_marble(Board board, int marble, int x, int y)
     {
         super.affect_marble( board, marble, x, y);
         if( x == tile_size/2 && y == tile_size/2) {
             // Make sure there's enough room in the arrays
-            if(pending_col.length == npending) {
-                int[] new_col = new int[npending * 2];
-                int[] new_dir = new int[npending * 2];
-                int[] new_count = new int[npending * 2];
-                int[] new_delay = new int[npending * 2];
-                System.arraycopy(pending_col,0,new_col,0,npending);
-                System.arraycopy(pending_dir,0,new_dir,0,npending);
-                System.arraycopy(pending_count,0,new_count,0,npending);
-                System.arraycopy(pending_delay,0,new_delay,0,npending);
-                pending_col = new_col;
-                pending_dir = new_dir;
-                pending_count = new_count;
-                pending_delay = new_delay;
-            }
+            if(pending_col.length == npending) grow(npending * 2);
             // Add the marble to the pending list
-            pending_col[npending] = marble.color;
-            pending_dir[npending] = marble.direction;
+            pending_col[npending] = board.marbles.color[marble];
+            pending_dir[npending] = board.marbles.direction[marble];
             pending_count[npending] = count - 1;
             pending_delay[npending] = replicator_delay;
             ++npending;
-            board.gr.play_sound( GameResources.replicator);
+            board.activate( this);
+            board.sounds.play_sound( Sounds.replicator);
         }
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+// A small, fast random number generator (SplitMix64).  Unlike
+// java.util.Random it can be split into independent streams, so each
+// part of the game can draw its own numbers without disturbing the
+// others, and a whole run can be reproduced from a single seed.
+final class Rng
+{
+    private long state;
+
+    public Rng(long seed) {
+        state = seed;
+    }
+
+    public long nextLong() {
+        return mix(state += 0x9e3779b97f4a7c15L);
+    }
+
+    // Scrambles the bits of z, so that similar inputs give unrelated
+    // outputs
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // A uniformly distributed value between 0 (inclusive) and n
+    public int nextInt(int n) {
+        int bits, val;
+        do {
+            // Reject the values that would bias the result
+            bits = (int)(nextLong() >>> 33);
+            val = bits % n;
+        } while( bits - val + (n-1) < 0);
+        return val;
+    }
+
+    public void save(Snapshot s) {
+        s.put_long(state);
+    }
+
+    public void restore(Snapshot s) {
+        state = s.get_long();
+    }
+
+    // A new generator whose numbers are independent of this one's
+    public Rng split() {
+        return new Rng(nextLong());
+    }
+}
@@ -16,22 +16,18 @@
  */
 package org.gignac.jp.pathological;
 
-class Shredder extends TunnelTile
+final class Shredder extends TunnelTile
 {
     public Shredder(Board board, int paths) {
-        super(board, paths);
-        board.sc.cache(R.drawable.misc);
+        super(board, paths, SHREDDER);
     }
 
-    protected void draw_cap(Blitter surface) {
-        surface.blit( R.drawable.misc, 418, 280, 38, 38, left+27, top+27);
-    }
-
-    public void affect_marble(Board board, Marble marble, int x, int y)
+    public void affect_marble(Board board, int marble, int x, int y)
     {
         if( x == tile_size/2 && y == tile_size/2) {
+            board.event(Events.MARBLE_LOST, board.marbles.color[marble]);
             board.deactivateMarble( marble);
-            board.gr.play_sound( GameResources.shredder);
+            board.sounds.play_sound( Sounds.shredder);
         }
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.util.Arrays;
+
+// The state of a board, flattened into ints by Board.save() and read
+// back in the same order by Board.restore()
+final class Snapshot
+{
+    int[] data;
+    int size;   // The number of ints written
+    int pos;    // The next int to read
+
+    public Snapshot() {
+        data = new int[256];
+    }
+
+    public void clear() {
+        size = 0;
+        pos = 0;
+    }
+
+    // Make room for n more ints
+    public void reserve(int n) {
+        if( size + n > data.length)
+            data = Arrays.copyOf(data, Math.max(size + n, data.length * 2));
+    }
+
+    public void put(int v) {
+        if( size == data.length) reserve(1);
+        data[size++] = v;
+    }
+
+    public void put(int[] a, int n) {
+        reserve(n);
+        System.arraycopy(a, 0, data, size, n);
+        size += n;
+    }
+
+    public void put_long(long v) {
+        put((int)v);
+        put((int)(v >>> 32));
+    }
+
+    // A copy of what has been written, e.g. to keep in a Bundle
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    public void load(int[] a) {
+        clear();
+        put(a, a.length);
+    }
+
+    public int get() {
+        return data[pos++];
+    }
+
+    public void get(int[] a, int n) {
+        System.arraycopy(data, pos, a, 0, n);
+        pos += n;
+    }
+
+    public long get_long() {
+        long lo = get() & 0xffffffffL;
+        return lo | ((long)get() << 32);
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+// Searches for a way to complete a level before its timers run out.
+// At each decision point the solver can tap a wheel, flick a marble out
+// of one, or leave the board alone.  The board then runs until the
+// choices change - a hole fills or empties, or a wheel stops turning -
+// which is the next decision point.  If nothing changes within
+// max_wait ticks, that is a decision point too.
+//
+// Positions are explored best first, by heuristic(), on every core.
+// Each thread keeps its own queue of positions and expands the best of
+// them; a thread whose queue is empty steals the best position from
+// another thread.  Positions that have been reached before are skipped,
+// using a shared TranspositionTable keyed by position(), which is
+// deliberately looser than the board's full hash.
+//
+// Memory is bounded: a queued position holds a Snapshot, so when a
+// thread's queue grows past its share of max_queued, the worse half of
+// it is thrown away.  This narrows the search rather than failing it.
+// The search ends after max_nodes positions have been expanded, or when
+// none are left.  So the search is not exhaustive, and finding no
+// solution doesn't prove that a level can't be solved.
+final class Solver
+{
+    public static final int max_wait = 5 * Board.frames_per_sec;
+
+    private final byte[] boards;
+    public final int level;
+    public final long seed;
+    public int threads = Runtime.getRuntime().availableProcessors();
+    public int max_nodes = 100000;
+    public int max_queued = 50000;
+    public int table_bits = 20;
+
+    private TranspositionTable seen;
+    private Worker[] workers;
+    private final AtomicInteger pending = new AtomicInteger(); // See Worker
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger expanded = new AtomicInteger();
+    private volatile Solution best;
+
+    // A position, and the input that led to it from its parent
+    private static final class Node implements Comparable<Node> {
+        final Node parent;
+        final int tick;         // When the input was made
+        final int input;        // Tile index * 5 + Board.input() action
+        int[] state;            // Dropped once the node is expanded
+        final int priority;
+        final int launch_slack; // The least the launch timer has had left
+
+        Node(Node parent, int tick, int input, int[] state, int priority,
+             int launch_slack) {
+            this.parent = parent;
+            this.tick = tick;
+            this.input = input;
+            this.state = state;
+            this.priority = priority;
+            this.launch_slack = launch_slack;
+        }
+
+        public int compareTo(Node o) {
+            return o.priority < priority ? -1 : o.priority > priority ? 1 : 0;
+        }
+    }
+
+    // A way to complete the level, as inputs in the form Replay uses
+    public static final class Solution {
+        public final int score;         // Including the end of level bonus
+        public final int ticks;         // When the level was completed
+        public final int board_slack;   // Milliseconds left on the board timer
+        public final int launch_slack;  // The closest the launch timer came
+        public final int[] input_ticks;
+        public final int[] inputs;
+
+        Solution(int score, int ticks, int board_slack, int launch_slack,
+                 Node last) {
+            this.score = score;
+            this.ticks = ticks;
+            this.board_slack = board_slack;
+            this.launch_slack = launch_slack;
+            int n = 0;
+            for( Node node = last; node.parent != null; node = node.parent)
+                if( node.input >= 0) ++n;
+            input_ticks = new int[n];
+            inputs = new int[n];
+            for( Node node = last; node.parent != null; node = node.parent) {
+                if( node.input < 0) continue;
+                --n;
+                input_ticks[n] = node.tick;
+                inputs[n] = node.input;
+            }
+        }
+    }
+
+    public Solver(byte[] boards, int level, long seed) {
+        this.boards = boards;
+        this.level = level;
+        this.seed = seed;
+    }
+
+    // The level as the game starts it, with the first marble launched
+    public Board load() {
+        Board board = new Board(Sounds.silent, Clock.system, seed,
+            new ByteArrayInputStream(boards), level);
+        board.launch_marble();
+        return board;
+    }
+
+    public int expanded() {
+        return expanded.get();
+    }
+
+    // Searches until done, and returns the highest scoring solution
+    // found, or null
+    public Solution solve() throws InterruptedException {
+        seen = new TranspositionTable(table_bits);
+        workers = new Worker[threads];
+        for( int i=0; i < threads; ++i) workers[i] = new Worker(i);
+
+        Board board = workers[0].board;
+        Snapshot s = workers[0].snapshot;
+        board.save(s);
+        seen.visit(position(board));
+        push(workers[0], new Node(null, 0, -1, s.toArray(),
+            heuristic(board), board.launch_timeout));
+
+        for( Worker w : workers) w.start();
+        for( Worker w : workers) w.join();
+        return best;
+    }
+
+    // Positions with more wheels completed, and with more marbles of
+    // one color in each of the other wheels, are closer to done
+    static int heuristic(Board board) {
+        int h = board.score();
+        for( Wheel w : board.wheels) {
+            if( w.completed) {
+                h += 1000;
+                continue;
+            }
+            int most = 0;
+            for( int i=0; i < 4; ++i) {
+                int c = w.hole(i);
+                if( c < 0) continue;
+                int same = 0;
+                for( int j=0; j < 4; ++j) {
+                    int d = w.hole(j);
+                    if( d == c || d == 8) ++same;
+                }
+                if( same > most) most = same;
+            }
+            h += most * most * most * 10;
+        }
+        return h;
+    }
+
+    // Positions count as repeats if the tiles hold the same, the next
+    // marble to launch is the same color, and there are as many marbles
+    // in play, wherever the marbles happen to be.  The timers, the rest
+    // of the launch queue, and how long a trigger has to go before it
+    // resets are left out as well.  This is lossy on purpose: it prunes
+    // far more than the exact Board.hash() would, at the risk of passing
+    // over a position that was better placed or had more time left.  On
+    // every level at 20000 nodes, keying on Board.hash() instead solved
+    // two levels that this misses, and missed three that this solves.
+    private static long position(Board board) {
+        return board.zobrist * 31 + board.marbles.size();
+    }
+
+    // Changes whenever the inputs worth trying might change
+    static int choices(Board board) {
+        int c = 0;
+        for( Wheel w : board.wheels)
+            c = c * 31 + (w.spinpos == 0 ? w.marbles : 1);
+        return c;
+    }
+
+    // The inputs worth trying: flicking each marble out of a wheel,
+    // and turning each wheel that holds a marble.  There are at most
+    // five for each wheel.
+    static int inputs(Board board, int[] inputs) {
+        int n = 0;
+        for( Wheel w : board.wheels) {
+            if( w.spinpos != 0) continue;
+            int tile = w.tile_y * Board.horiz_tiles + w.tile_x;
+            boolean loaded = false, entering = false;
+            for( int i=0; i < 4; ++i) {
+                int c = w.hole(i);
+                if( c == -1) entering = true;
+                if( c < 0) continue;
+                loaded = true;
+                if((w.paths & (1 << i)) != 0) inputs[n++] = tile * 5 + i;
+            }
+            if( loaded && !entering) inputs[n++] = tile * 5 + Board.CLICK;
+        }
+        return n;
+    }
+
+    private void push(Worker w, Node node) {
+        queued.incrementAndGet();
+        pending.incrementAndGet();
+        synchronized(w.queue) {
+            w.queue.add(node);
+            if( w.queue.size() > max_queued / workers.length) trim(w.queue);
+        }
+    }
+
+    // Keeps just the better half of a queue that has grown too long
+    private void trim(PriorityQueue<Node> queue) {
+        Node[] nodes = queue.toArray(new Node[queue.size()]);
+        Arrays.sort(nodes);
+        queue.clear();
+        int keep = nodes.length / 2;
+        for( int i=0; i < keep; ++i) queue.add(nodes[i]);
+        queued.addAndGet(keep - nodes.length);
+        pending.addAndGet(keep - nodes.length);
+    }
+
+    private Node take(Worker w) {
+        Node node;
+        synchronized(w.queue) {
+            node = w.queue.poll();
+        }
+        for( int i=1; node == null && i < workers.length; ++i) {
+            Worker victim = workers[(w.index + i) % workers.length];
+            synchronized(victim.queue) {
+                node = victim.queue.poll();
+            }
+        }
+        if( node != null) queued.decrementAndGet();
+        return node;
+    }
+
+    private synchronized void found(Solution s) {
+        if( best == null || s.score > best.score) best = s;
+    }
+
+    private final class Worker extends Thread {
+        final int index;
+        final Board board;
+        final Snapshot snapshot = new Snapshot();
+        final PriorityQueue<Node> queue = new PriorityQueue<>();
+        final int[] inputs;
+
+        Worker(int index) {
+            this.index = index;
+            this.board = load();
+            this.inputs = new int[board.wheels.length * 5];
+            setDaemon(true);
+        }
+
+        // pending counts the nodes that are queued or being expanded, so
+        // when it reaches zero there is nothing left to do
+        @Override
+        public void run() {
+            while( expanded.get() < max_nodes) {
+                Node node = take(this);
+                if( node == null) {
+                    if( pending.get() == 0) break;
+                    Thread.yield();
+                    continue;
+                }
+                expanded.incrementAndGet();
+                expand(node);
+                pending.decrementAndGet();
+            }
+        }
+
+        private void expand(Node node) {
+            snapshot.load(node.state);
+            node.state = null;
+            board.restore(snapshot);
+            int tick = board.ticks;
+            int n = inputs(board, inputs);
+            for( int i=-1; i < n; ++i) {
+                if( i >= 0) {
+                    board.restore(snapshot);
+                    int tile = inputs[i] / 5;
+                    board.input(tile % Board.horiz_tiles,
+                        tile / Board.horiz_tiles, inputs[i] % 5);
+                }
+                int input = i < 0 ? -1 : inputs[i];
+
+                // Run on to the next decision point
+                int slack = node.launch_slack;
+                int status = Board.INCOMPLETE;
+                int choices = choices(board);
+                for( int t=0; t < max_wait && status == Board.INCOMPLETE;
+                     ++t) {
+                    status = board.update();
+                    if( board.launch_timeout >= 0)
+                        slack = Math.min(slack, board.launch_timeout);
+                    if( choices(board) != choices) break;
+                }
+
+                if( status == Board.COMPLETE) {
+                    // Add the end of level bonus, as the game does
+                    int score = board.score() +
+                        board.emptyHolePercentage() * 2 +
+                        board.timeRemainingPercentage() * 5;
+                    found(new Solution(score, board.ticks,
+                        board.board_timeout, slack,
+                        new Node(node, tick, input, null, 0, slack)));
+                } else if( status == Board.INCOMPLETE &&
+                    !seen.visit(position(board))) {
+                    Snapshot s = new Snapshot();
+                    board.save(s);
+                    push(this, new Node(node, tick, input, s.toArray(),
+                        heuristic(board), slack));
+                }
+            }
+        }
+    }
+}
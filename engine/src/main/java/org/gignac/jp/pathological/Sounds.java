@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+// The sound effects that the simulation can trigger.  The game plays
+// them through a SoundPool; headless runs use the silent implementation.
+interface Sounds
+{
+    int filter_admit = 0;
+    int wheel_turn = 1;
+    int wheel_completed = 2;
+    int change_color = 3;
+    int direct_marble = 4;
+    int ping = 5;
+    int trigger_setup = 6;
+    int teleport = 7;
+    int marble_release = 8;
+    int levelfinish = 9;
+    int die = 10;
+    int incorrect = 11;
+    int switched = 12;
+    int shredder = 13;
+    int replicator = 14;
+
+    Sounds silent = new Sounds() {
+        public void play_sound(int id) {}
+    };
+
+    void play_sound(int id);
+}
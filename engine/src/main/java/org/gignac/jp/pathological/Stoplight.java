@@ -16,36 +16,50 @@
  */
 package org.gignac.jp.pathological;
 
-class Stoplight extends Tile {
+final class Stoplight extends Tile {
     public int current;
-    public final int[] marbles;
+    public int marbles;     // The three lights, packed with Marble.pack
 
     public Stoplight(Board board, String colors) {
-        super(board, 0); // Call base class intializer
-        marbles = new int[3];
+        super(board, 0, STOPLIGHT); // Call base class intializer
+        marbles = Marble.repeat(-1);
         for(int i=0; i<3; ++i)
-            marbles[i] = colors.charAt(i)-'0';
+            marbles = Marble.pack(marbles, i, colors.charAt(i)-'0');
         current = 0;
-        board.sc.cache(R.drawable.misc);
+    }
+
+    public int color(int i) {
+        return Marble.unpack(marbles, i);
     }
 
     @Override
-    public void draw_back( Blitter b) {
-        super.draw_back(b);
-        b.blit( R.drawable.misc, 462, 0, 36, 92, left+28, top);
-        for(int i=current; i < 3; ++i) {
-            b.blit( R.drawable.misc, marbles[i]*28, 357, 28, 28,
-                left + Tile.tile_size/2 - 14, top + 3 + (29*i));
-        }
+    public void save(Snapshot s) {
+        s.put(current);
+        s.put(marbles);
+    }
+
+    @Override
+    public void restore(Snapshot s) {
+        current = s.get();
+        marbles = s.get();
+    }
+
+    // The lights that are still lit say how far along the stoplight is
+    @Override
+    public long state_key() {
+        return key(0, marbles);
     }
 
-    public void complete(@SuppressWarnings("UnusedParameters") Board board) {
+    public void complete(Board board) {
+        int was = marbles;
         for( int i=0; i<3; ++i) {
-            if( marbles[i] >= 0) {
-                marbles[i] = -1;
+            if( color(i) >= 0) {
+                marbles = Marble.pack(marbles, i, -1);
                 break;
             }
         }
+        rekey(0, was, marbles);
         current += 1;
+        board.recheck_wheels();
     }
 }
@@ -16,16 +16,17 @@
  */
 package org.gignac.jp.pathological;
 
-class Switch extends TunnelTile
+final class Switch extends TunnelTile
 {
-    private int curdir;
-    private int otherdir;
+    int curdir;
+    int otherdir;
 
     public Switch(Board board, int paths, int dir1, int dir2)
     {
-        super(board, paths);
+        super(board, paths, SWITCH);
         curdir = dir1;
         otherdir = dir2;
+        exits = exits_toward(curdir);
     }
 
     private void switch_()
@@ -33,21 +34,34 @@ class Switch extends TunnelTile
         int t = curdir;
         curdir = otherdir;
         otherdir = t;
-        board.gr.play_sound( GameResources.switched);
+        rekey(0, t, curdir);
+        exits = exits_toward(curdir);
+        board.sounds.play_sound( Sounds.switched);
     }
 
-    protected void draw_cap(Blitter surface)
-    {
-        final int i = (curdir*4+otherdir)*4/5;
-        surface.blit( R.drawable.misc,
-            38*i + (i<1?456:-38), i<1?280:318, 38, 38,
-            left+27, top+27);
+    @Override
+    public long state_key() {
+        return key(0, curdir);
+    }
+
+    @Override
+    public void save(Snapshot s) {
+        s.put(curdir);
+        s.put(otherdir);
+    }
+
+    @Override
+    public void restore(Snapshot s) {
+        curdir = s.get();
+        otherdir = s.get();
+        exits = exits_toward(curdir);
     }
 
-    public void affect_marble(Board board, Marble marble, int x, int y)
+    public void affect_marble(Board board, int marble, int x, int y)
     {
         if( x == tile_size/2 && y == tile_size/2) {
-            marble.direction = curdir;
+            final int[] dirs = board.marbles.direction;
+            dirs[marble] = exit(dirs[marble]);
             switch_();
         }
     }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+class Tile
+{
+    // The kinds of tile.  The tick loop switches on these rather than
+    // making virtual calls, so that each call site sees just one class.
+    public static final int PLAIN = 0;
+    public static final int WHEEL = 1;
+    public static final int BUFFER = 2;
+    public static final int DIRECTOR = 3;
+    public static final int FILTER = 4;
+    public static final int PAINTER = 5;
+    public static final int REPLICATOR = 6;
+    public static final int SHREDDER = 7;
+    public static final int SWITCH = 8;
+    public static final int TELEPORTER = 9;
+    public static final int TRIGGER = 10;
+    public static final int STOPLIGHT = 11;
+
+    // The kinds that have anything to save()
+    static final int stateful = (1 << WHEEL) | (1 << BUFFER) |
+        (1 << REPLICATOR) | (1 << SWITCH) | (1 << TRIGGER) | (1 << STOPLIGHT);
+
+    public static final int tile_size = 92;
+    private static final int[] center_offset = { tile_size/2 };
+    private static final int[] path_exits = new int[16];
+    public final int kind;
+    public final int paths;     // One bit per direction
+    int exits;                  // See exit()
+    public int left, top;
+    int tile_x;
+    int tile_y;
+    final Board board;
+
+    static {
+        for( int paths=0; paths < 16; ++paths)
+            for( int dir=0; dir < 4; ++dir)
+                path_exits[paths] |= turn(paths, dir) << (dir*2);
+    }
+
+    // The direction in which a marble heading in direction dir leaves
+    // the center of a tile with the given paths
+    private static int turn(int paths, int dir) {
+        if((paths & (1 << dir)) != 0) return dir;
+
+        // Figure out the new direction
+        int t = paths - (1 << (dir^2));
+        if(t == 1) return 0;
+        else if(t == 2) return 1;
+        else if(t == 4) return 2;
+        else if(t == 8) return 3;
+        else return dir ^ 2;
+    }
+
+    public Tile(Board board, int paths) {
+        this(board, paths, PLAIN);
+    }
+
+    Tile(Board board, int paths, int kind) {
+        this.board = board;
+        this.kind = kind;
+        this.paths = paths;
+        this.exits = path_exits[paths];
+        this.left = - tile_size/2;
+        this.top = - tile_size/2;
+    }
+
+    public void setxy(int x, int y) {
+        left = Tile.tile_size * x;
+        top = Tile.tile_size * y;
+        tile_x = x;
+        tile_y = y;
+    }
+
+    // The direction in which a marble that reaches the center of the
+    // tile heading in direction dir will leave it.  The exits for the
+    // four directions are packed two bits each.
+    public int exit( int dir) {
+        return (exits >> (dir << 1)) & 3;
+    }
+
+    // Exits that send every marble in the same direction
+    static int exits_toward( int dir) {
+        return dir * 0x55;
+    }
+
+    // Returns true if the tile needs to be updated again next tick
+    public boolean update( Board board) {
+        return false;
+    }
+
+    @SuppressWarnings("UnusedParameters")
+    public void click(Board board, int posx, int posy) {}
+
+    @SuppressWarnings("UnusedParameters")
+    public void flick(Board board, int posx, int posy, int dir) {}
+
+    // The tile's part of Board.hash(): the XOR of key() for each field
+    // of its state
+    public long state_key() {
+        return 0;
+    }
+
+    final long key(int field, int value) {
+        return Board.key((tile_y * Board.horiz_tiles + tile_x) * 4 + field,
+            value);
+    }
+
+    // Keeps the hash up to date when a field changes
+    final void rekey(int field, int was, int now) {
+        board.zobrist ^= key(field, was) ^ key(field, now);
+    }
+
+    // Tiles that change during play write their state here, and read
+    // it back in the same order
+    @SuppressWarnings("UnusedParameters")
+    public void save(Snapshot s) {}
+
+    @SuppressWarnings("UnusedParameters")
+    public void restore(Snapshot s) {}
+
+    // The offsets from the tile's edge, along either axis, at which
+    // affect_marble might do anything to a marble passing through
+    public int[] event_offsets() {
+        return center_offset;
+    }
+
+    public void affect_marble( Board board, int marble, int rposx, int rposy)
+    {
+        steer( board, marble, rposx, rposy);
+    }
+
+    // Send a marble that reaches the center on its way
+    final void steer( Board board, int marble, int rposx, int rposy)
+    {
+        if(rposx == tile_size/2 && rposy == tile_size/2) {
+            final int[] direction = board.marbles.direction;
+            direction[marble] = exit(direction[marble]);
+        }
+    }
+}
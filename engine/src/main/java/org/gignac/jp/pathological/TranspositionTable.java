@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+import java.util.Arrays;
+
+// A fixed-size table from Board.hash() values to a 64-bit value of
+// the caller's choosing, which any number of threads can share without
+// locking.  Each slot is two longs: the value, and the hash XORed with
+// the value.  A reader only believes a slot if the two agree, so a slot
+// that another thread was halfway through writing just reads as a miss
+// rather than as the wrong value.  An empty slot is all zeroes, which
+// would read as a hash of zero holding zero, so that one entry can't be
+// kept.  New entries simply replace whatever was in their slot, so the
+// table never fills up; it forgets instead.
+final class TranspositionTable
+{
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private final long[] slots;
+    private final int mask;
+
+    // Holds up to 2^bits entries
+    public TranspositionTable(int bits) {
+        slots = new long[2 << bits];
+        mask = (1 << bits) - 1;
+    }
+
+    // The value stored for the hash, or MISSING
+    public long get(long hash) {
+        int i = index(hash);
+        long value = slots[i];
+        long check = slots[i+1];
+        if( (value | check) == 0) return MISSING;
+        return (check ^ value) == hash ? value : MISSING;
+    }
+
+    public void put(long hash, long value) {
+        int i = index(hash);
+        slots[i] = value;
+        slots[i+1] = hash ^ value;
+    }
+
+    // Records the hash, and returns whether it was already there
+    public boolean visit(long hash) {
+        if( get(hash) != MISSING) return true;
+        put(hash, 0);
+        return false;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+    }
+
+    private int index(long hash) {
+        // The low bits pick the slot; mix in the high ones too, in case
+        // the caller's hashes are weak there
+        return ((int)(hash ^ (hash >>> 32)) & mask) << 1;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+final class Trigger extends Tile
+{
+    private static final int trigger_time = 30; // 30 seconds
+    public int marbles;     // Packed with Marble.pack
+    public boolean armed;
+    private int countdown;
+
+    public Trigger(Board board) {
+        super(board, 0, TRIGGER); // Call base class intializer
+        this.marbles = 0;
+        this.setup(board.trigger_colors);
+    }
+
+    // The first time, each color that the level lists is as likely as
+    // the others; after that, the colors come with the launch queue's
+    // odds, crazy marbles and all
+    private void setup(ColorSampler colors) {
+        Rng random = board.trigger_random;
+        long was = state_key();
+        this.countdown = 0;
+        for( int i=0; i < 4; ++i) {
+            marbles = Marble.pack(marbles, i, colors.next(random));
+        }
+        armed = true;
+        board.zobrist ^= was ^ state_key();
+        board.recheck_wheels();
+    }
+
+    public int color(int i) {
+        return Marble.unpack(marbles, i);
+    }
+
+    @Override
+    public boolean update(Board board) {
+        if( countdown > 0) {
+            countdown -= 1;
+            if( countdown == 0) {
+                setup(board.colors);
+                board.sounds.play_sound( Sounds.trigger_setup);
+            }
+        }
+        return countdown > 0;
+    }
+
+    @Override
+    public void save(Snapshot s) {
+        s.put(marbles);
+        s.put(armed ? 1 : 0);
+        s.put(countdown);
+    }
+
+    @Override
+    public void restore(Snapshot s) {
+        marbles = s.get();
+        armed = s.get() != 0;
+        countdown = s.get();
+    }
+
+    @Override
+    public long state_key() {
+        return key(0, marbles) ^ key(1, armed ? 1 : 0);
+    }
+
+    public void complete(Board board) {
+        rekey(1, armed ? 1 : 0, 0);
+        armed = false;
+        countdown = trigger_time * Board.frames_per_sec;
+        board.activate( this);
+        board.recheck_wheels();
+    }
+}
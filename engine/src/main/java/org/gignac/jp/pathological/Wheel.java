@@ -0,0 +1,318 @@
+/*
+ * Copyright (C) 2016  John-Paul Gignac
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gignac.jp.pathological;
+
+final class Wheel extends Tile
+{
+    public static final int wheel_margin = 4;
+    public static final int wheel_steps = 9;
+    public static final int holecenter_radius =
+        (tile_size - Marble.marble_size) / 2 - wheel_margin;
+    // The x and y of each hole, for each rotational position in turn
+    private static final int[] holecenters = new int[wheel_steps * 8];
+    private static final int[] wheel_offsets;
+    private static final int all_empty = Marble.repeat(-3);
+    private static final int all_wild = Marble.repeat(8);
+    private static final int high_bits = 0x80808080;
+
+    // The contents of the four holes, packed with Marble.pack: either
+    // a marble color, or -1 for a marble entering, -2 for a hole that
+    // is reserved for a marble, or -3 for an empty hole
+    public int marbles;
+    private final int[] entering = { -1, -1, -1, -1 };
+    public int spinpos;
+    public boolean completed;
+    boolean dirty;  // Whether maybe_complete might have a different answer
+
+    static {
+        // The positions of the holes in the wheels in
+        // each rotational position
+        for( int i=0; i<wheel_steps; ++i) {
+            double theta = Math.PI * i / (2 * wheel_steps);
+            double c = Math.floor( 0.5 + Math.cos(theta)*holecenter_radius);
+            double s = Math.floor( 0.5 + Math.sin(theta)*holecenter_radius);
+            int[] h = holecenters;
+            h[i*8] = (int)Math.round(tile_size/2 + s);
+            h[i*8+1] = (int)Math.round(tile_size/2 - c);
+            h[i*8+2] = (int)Math.round(tile_size/2 + c);
+            h[i*8+3] = (int)Math.round(tile_size/2 + s);
+            h[i*8+4] = (int)Math.round(tile_size/2 - s);
+            h[i*8+5] = (int)Math.round(tile_size/2 + c);
+            h[i*8+6] = (int)Math.round(tile_size/2 - c);
+            h[i*8+7] = (int)Math.round(tile_size/2 - s);
+        }
+
+        // Marbles are affected as they reach the edge of the
+        // wheel and as they reach a hole
+        wheel_offsets = new int[10];
+        wheel_offsets[0] = wheel_margin - Marble.marble_size/2;
+        wheel_offsets[1] = tile_size - wheel_margin + Marble.marble_size/2;
+        for( int i=0; i<4; ++i) {
+            wheel_offsets[2+i] = holecenter_x(0, i);
+            wheel_offsets[6+i] = holecenter_y(0, i);
+        }
+    }
+
+    public Wheel( Board board, int paths) {
+        super(board, paths, WHEEL); // Call base class intializer
+        spinpos = 0;
+        completed = false;
+        marbles = all_empty;
+    }
+
+    // The center of hole i with the wheel in the given rotational
+    // position, relative to the tile
+    public static int holecenter_x(int spinpos, int i) {
+        return holecenters[(spinpos*4 + i)*2];
+    }
+
+    public static int holecenter_y(int spinpos, int i) {
+        return holecenters[(spinpos*4 + i)*2 + 1];
+    }
+
+    public int hole(int i) {
+        return Marble.unpack(marbles, i);
+    }
+
+    public void set_hole(int i, int color) {
+        int was = marbles;
+        marbles = Marble.pack(marbles, i, color);
+        rekey(0, was, marbles);
+    }
+
+    @Override
+    public long state_key() {
+        return key(0, marbles) ^ key(1, spinpos) ^ key(2, completed ? 1 : 0);
+    }
+
+    @Override
+    public boolean update( Board board) {
+        if( spinpos > 0) {
+            spinpos -= 1;
+            rekey(1, spinpos+1, spinpos);
+            if( spinpos == 0) mark_dirty();
+        }
+        return spinpos > 0;
+    }
+
+    // Only holes filling up, the wheel coming to rest, or a change
+    // to the trigger or stoplight can allow the wheel to complete.
+    // Holes being emptied or locked never can.
+    public void mark_dirty() {
+        if( !dirty) {
+            dirty = true;
+            board.dirty_wheels += 1;
+        }
+    }
+
+    @Override
+    public void click( Board board, int posx, int posy)
+    {
+        // Ignore all clicks while rotating
+        if( spinpos != 0) return;
+
+        // First, make sure that no marbles are currently entering
+        if( Marble.zero_bytes(marbles ^ Marble.repeat(-2)) != 0) return;
+
+        // Suck in any marbles that are entering
+        for( int i=0; i < 4; ++i) {
+            if( hole(i) == -1) {
+                set_hole(i, board.marbles.color[entering[i]]);
+                board.deactivateMarble(entering[i]);
+                entering[i] = -1;
+            }
+        }
+
+        // Start the wheel spinning
+        spinpos = wheel_steps - 1;
+        rekey(1, 0, spinpos);
+        board.activate( this);
+        board.sounds.play_sound( Sounds.wheel_turn);
+
+        // Reposition the marbles
+        int was = marbles;
+        marbles = (marbles >>> 8) | (marbles << 24);
+        rekey(0, was, marbles);
+    }
+
+    @Override
+    public void flick( Board board, int posx, int posy, int dir)
+    {
+        // Ignore all flicks while rotating
+        if( spinpos != 0) return;
+        eject( dir, board, tile_x, tile_y);
+    }
+
+    private void eject(int i, Board board, int tile_x, int tile_y)
+    {
+        Sounds sounds = board.sounds;
+
+        // Determine the neighboring tile
+        Tile neighbor = board.tiles
+            [(tile_y+Marble.dy[i]+Board.vert_tiles) % Board.vert_tiles]
+            [(tile_x+Marble.dx[i]+Board.horiz_tiles) % Board.horiz_tiles];
+
+        if ( hole(i) < 0 ||
+            // Disallow marbles to go off the left edge of the board
+            (tile_x == 0 && i==3) ||
+
+            // If there is no way out here, skip it
+            ((paths & (1 << i)) == 0) ||
+
+            // If the neighbor is a wheel that is either turning
+            // or has a marble already in the hole, disallow
+            // the ejection
+            (neighbor.kind == WHEEL &&
+            (((Wheel)neighbor).spinpos != 0 ||
+             ((Wheel)neighbor).hole(i^2) != -3))
+            )
+            sounds.play_sound( Sounds.incorrect);
+        else {
+            // If the neighbor is a wheel, apply a special lock
+            if( neighbor.kind == WHEEL)
+                ((Wheel)neighbor).set_hole(i^2, -2);
+            else if( board.marbles.size() >= board.live_marbles_limit) {
+                // Impose the live marbles limit
+                sounds.play_sound( Sounds.incorrect);
+                return;
+            }
+
+            // Eject the marble
+            board.activateMarble( hole(i),
+                holecenter_x(0, i)+left,
+                holecenter_y(0, i)+top,
+                i);
+            set_hole(i, -3);
+            sounds.play_sound( Sounds.marble_release);
+        }
+    }
+
+    @Override
+    public void save(Snapshot s) {
+        s.put(marbles);
+        for( int i=0; i < 4; ++i) s.put(entering[i]);
+        s.put(spinpos);
+        s.put(completed ? 1 : 0);
+        s.put(dirty ? 1 : 0);
+    }
+
+    @Override
+    public void restore(Snapshot s) {
+        marbles = s.get();
+        for( int i=0; i < 4; ++i) entering[i] = s.get();
+        spinpos = s.get();
+        completed = s.get() != 0;
+        dirty = s.get() != 0;
+    }
+
+    @Override
+    public int[] event_offsets() {
+        return wheel_offsets;
+    }
+
+    @Override
+    public void affect_marble(Board board, int marble, int rposx, int rposy)
+    {
+        final int[] direction = board.marbles.direction;
+
+        // Watch for marbles entering
+        if( rposx+Marble.marble_size/2 == wheel_margin ||
+            rposx-Marble.marble_size/2 == tile_size - wheel_margin ||
+            rposy+Marble.marble_size/2 == wheel_margin ||
+            rposy-Marble.marble_size/2 == tile_size - wheel_margin) {
+            if( spinpos != 0 || hole(direction[marble]^2) >= -1) {
+                // Reject the marble
+                direction[marble] = direction[marble] ^ 2;
+                board.sounds.play_sound( Sounds.ping);
+            } else {
+                set_hole(direction[marble]^2, -1);
+                entering[direction[marble]^2] = marble;
+            }
+        }
+
+        final int[] h = holecenters;
+        for( int i=0; i<4; ++i) {
+            if( rposx == h[i*2] && rposy == h[i*2+1]) {
+                // Accept the marble
+                board.deactivateMarble( marble);
+                set_hole(direction[marble]^2, board.marbles.color[marble]);
+                entering[direction[marble]^2] = -1;
+                mark_dirty();
+                break;
+            }
+        }
+    }
+
+    private void complete(Board board) {
+        // Complete the wheel
+        long was = state_key();
+        marbles = all_empty;
+        if( !completed) board.incomplete_wheels -= 1;
+        completed = true;
+        board.zobrist ^= was ^ state_key();
+        board.sounds.play_sound( Sounds.wheel_completed);
+    }
+
+    public int maybe_complete(Board board) {
+        if( spinpos > 0) return 0;
+
+        int base_score = completed ? 10 : 50;
+
+        // The holes holding a wildcard (8) marble
+        int wild = Marble.zero_bytes(marbles ^ all_wild);
+
+        // Is there a trigger?
+        if(board.trigger != null &&
+           board.trigger.armed) {
+            // Compare against the trigger
+            if((Marble.zero_bytes(marbles ^ board.trigger.marbles) | wild)
+                != high_bits) return 0;
+            complete( board);
+            board.trigger.complete( board);
+            return base_score + 50;
+        }
+
+        // Do we have four the same color?  The color is that of the
+        // first marble that isn't a wildcard, if any.
+        if((marbles & high_bits) != 0) return 0;
+        int color = 8;
+        int tame = ~wild & high_bits;
+        if( tame != 0) {
+            color = hole(Integer.numberOfTrailingZeros(tame) >> 3);
+            if((Marble.zero_bytes(marbles ^ Marble.repeat(color)) | wild)
+                != high_bits) return 0;
+        }
+
+        // Is there a stoplight?
+        if((board.stoplight != null) &&
+           (board.stoplight.current < 3)) {
+            // Compare against the stoplight
+            if( color != 8 &&
+                color != board.stoplight.color(board.stoplight.current))
+                return 0;
+            else {
+                complete(board);
+                board.stoplight.complete(board);
+                return base_score + 20;
+            }
+        }
+
+        complete( board);
+        return base_score;
+    }
+}
+